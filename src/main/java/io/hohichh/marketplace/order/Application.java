@@ -2,15 +2,19 @@ package io.hohichh.marketplace.order;
 
 import org.springframework.boot.*;
 import org.springframework.boot.autoconfigure.*;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.time.Clock;
 
 @SpringBootApplication
 @EnableCaching
 @EnableFeignClients
+@EnableScheduling
+@ConfigurationPropertiesScan
 public class Application {
 	@Bean
 	public Clock clock() {
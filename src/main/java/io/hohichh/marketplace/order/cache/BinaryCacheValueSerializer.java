@@ -0,0 +1,346 @@
+package io.hohichh.marketplace.order.cache;
+
+import io.hohichh.marketplace.order.dto.OrderWithItemsDto;
+import io.hohichh.marketplace.order.dto.UserDto;
+import io.hohichh.marketplace.order.dto.item.OrderItemDto;
+import io.hohichh.marketplace.order.dto.product.ProductDto;
+import io.hohichh.marketplace.order.model.order.Status;
+import lombok.extern.slf4j.Slf4j;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.lang.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+//NOTE: compact binary layout for the hot cache values (envelope, orders, products).
+//  header: magic | format version | flags, then the body (LZ4 block prefixed by
+//  the raw length when the COMPRESSED flag is set).
+//  body:   type tag followed by the fields of that type, nested values are tagged too.
+//Any other type is written with JDK serialization under its own tag. Values without the
+//magic byte are read as plain JDK serialization, so entries written before this codec stay readable.
+//A value written by a newer format version is treated as a cache miss; a value this version
+//can't read (e.g. a status it doesn't know) fails with SerializationException, which the caches
+//also turn into a miss.
+@Slf4j
+public class BinaryCacheValueSerializer implements RedisSerializer<Object> {
+    private static final byte MAGIC = (byte) 0xB1;
+    private static final byte FORMAT_VERSION = 1;
+    private static final byte FLAG_COMPRESSED = 1;
+    private static final int HEADER_LENGTH = 3;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_CACHE_ENTRY = 1;
+    private static final byte TAG_PRODUCT = 2;
+    private static final byte TAG_ORDER_WITH_ITEMS = 3;
+    private static final byte TAG_JDK = 127;
+
+    private final JdkSerializationRedisSerializer jdkSerializer;
+    private final int compressionThreshold;
+    private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+    private final LZ4FastDecompressor decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+
+    public BinaryCacheValueSerializer(@Nullable ClassLoader classLoader, int compressionThreshold) {
+        this.jdkSerializer = new JdkSerializationRedisSerializer(classLoader);
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(@Nullable Object value) throws SerializationException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeByte(MAGIC);
+            out.writeByte(FORMAT_VERSION);
+            out.writeByte(0);
+            writeValue(out, value);
+        } catch (IOException e) {
+            throw new SerializationException("Cannot serialize cache value", e);
+        }
+
+        byte[] bytes = buffer.toByteArray();
+        int bodyLength = bytes.length - HEADER_LENGTH;
+        if (bodyLength <= compressionThreshold) {
+            return bytes;
+        }
+
+        byte[] compressed = new byte[HEADER_LENGTH + Integer.BYTES + compressor.maxCompressedLength(bodyLength)];
+        int compressedLength = compressor.compress(bytes, HEADER_LENGTH, bodyLength,
+                compressed, HEADER_LENGTH + Integer.BYTES);
+        if (compressedLength + Integer.BYTES >= bodyLength) {
+            return bytes;
+        }
+
+        compressed[0] = MAGIC;
+        compressed[1] = FORMAT_VERSION;
+        compressed[2] = FLAG_COMPRESSED;
+        writeInt(compressed, HEADER_LENGTH, bodyLength);
+        return Arrays.copyOf(compressed, HEADER_LENGTH + Integer.BYTES + compressedLength);
+    }
+
+    @Override
+    @Nullable
+    public Object deserialize(@Nullable byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return jdkSerializer.deserialize(bytes);
+        }
+        if (bytes[1] != FORMAT_VERSION) {
+            log.debug("Skipping cache value of unknown format version {}", bytes[1]);
+            return null;
+        }
+
+        byte[] body = bytes;
+        int offset = HEADER_LENGTH;
+        int length = bytes.length - HEADER_LENGTH;
+        if ((bytes[2] & FLAG_COMPRESSED) != 0) {
+            length = readInt(bytes, HEADER_LENGTH);
+            body = decompressor.decompress(bytes, HEADER_LENGTH + Integer.BYTES, length);
+            offset = 0;
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(body, offset, length))) {
+            return readValue(in);
+        } catch (IOException e) {
+            throw new SerializationException("Cannot deserialize cache value", e);
+        }
+    }
+
+    private void writeValue(DataOutputStream out, @Nullable Object value) throws IOException {
+        switch (value) {
+            case null -> out.writeByte(TAG_NULL);
+            case CacheEntry entry -> {
+                out.writeByte(TAG_CACHE_ENTRY);
+                out.writeLong(entry.expiresAt());
+                out.writeLong(entry.computeMillis());
+                writeValue(out, entry.value());
+            }
+            case ProductDto product -> {
+                out.writeByte(TAG_PRODUCT);
+                writeProduct(out, product);
+            }
+            case OrderWithItemsDto order -> {
+                out.writeByte(TAG_ORDER_WITH_ITEMS);
+                writeOrder(out, order);
+            }
+            default -> {
+                byte[] serialized = jdkSerializer.serialize(value);
+                out.writeByte(TAG_JDK);
+                out.writeInt(serialized.length);
+                out.write(serialized);
+            }
+        }
+    }
+
+    @Nullable
+    private Object readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        return switch (tag) {
+            case TAG_NULL -> null;
+            case TAG_CACHE_ENTRY -> {
+                long expiresAt = in.readLong();
+                long computeMillis = in.readLong();
+                yield new CacheEntry(readValue(in), expiresAt, computeMillis);
+            }
+            case TAG_PRODUCT -> readProduct(in);
+            case TAG_ORDER_WITH_ITEMS -> readOrder(in);
+            case TAG_JDK -> {
+                byte[] serialized = new byte[in.readInt()];
+                in.readFully(serialized);
+                yield jdkSerializer.deserialize(serialized);
+            }
+            default -> throw new SerializationException("Unknown cache value tag " + tag);
+        };
+    }
+
+    private void writeProduct(DataOutputStream out, ProductDto product) throws IOException {
+        writeUuid(out, product.id());
+        writeString(out, product.name());
+        writeDecimal(out, product.price());
+    }
+
+    private ProductDto readProduct(DataInputStream in) throws IOException {
+        return new ProductDto(readUuid(in), readString(in), readDecimal(in));
+    }
+
+    private void writeOrder(DataOutputStream out, OrderWithItemsDto order) throws IOException {
+        writeUuid(out, order.id());
+        writeUuid(out, order.userId());
+        writeString(out, order.status() == null ? null : order.status().name());
+        writeDate(out, order.creationDate());
+        writeUser(out, order.userDto());
+
+        List<OrderItemDto> items = order.orderItems();
+        out.writeInt(items == null ? -1 : items.size());
+        if (items != null) {
+            for (OrderItemDto item : items) {
+                writeUuid(out, item.id());
+                writeUuid(out, item.orderId());
+                writeUuid(out, item.productId());
+                writeString(out, item.productName());
+                writeDecimal(out, item.pricePerUnit());
+                writeInteger(out, item.quantity());
+            }
+        }
+    }
+
+    private OrderWithItemsDto readOrder(DataInputStream in) throws IOException {
+        UUID id = readUuid(in);
+        UUID userId = readUuid(in);
+        String status = readString(in);
+        LocalDate creationDate = readDate(in);
+        UserDto user = readUser(in);
+
+        int size = in.readInt();
+        List<OrderItemDto> items = null;
+        if (size >= 0) {
+            items = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                items.add(new OrderItemDto(readUuid(in), readUuid(in), readUuid(in),
+                        readString(in), readDecimal(in), readInteger(in)));
+            }
+        }
+        return new OrderWithItemsDto(id, userId, readStatus(status), creationDate, user, items);
+    }
+
+    @Nullable
+    private static Status readStatus(@Nullable String status) {
+        if (status == null) {
+            return null;
+        }
+        try {
+            return Status.valueOf(status);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Unknown order status " + status + " in cache value", e);
+        }
+    }
+
+    private void writeUser(DataOutputStream out, @Nullable UserDto user) throws IOException {
+        out.writeBoolean(user != null);
+        if (user != null) {
+            writeUuid(out, user.id());
+            writeString(out, user.name());
+            writeString(out, user.surname());
+            writeDate(out, user.birthDate());
+            writeString(out, user.email());
+        }
+    }
+
+    @Nullable
+    private UserDto readUser(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return new UserDto(readUuid(in), readString(in), readString(in), readDate(in), readString(in));
+    }
+
+    private static void writeUuid(DataOutputStream out, @Nullable UUID uuid) throws IOException {
+        out.writeBoolean(uuid != null);
+        if (uuid != null) {
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        }
+    }
+
+    @Nullable
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+    }
+
+    private static void writeString(DataOutputStream out, @Nullable String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    @Nullable
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[length];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    //scale + two's-complement unscaled value, prices usually take 1-4 bytes
+    private static void writeDecimal(DataOutputStream out, @Nullable BigDecimal value) throws IOException {
+        if (value == null) {
+            out.writeByte(-1);
+            return;
+        }
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        if (unscaled.length >= 0xFF) {
+            throw new SerializationException("Decimal value is too large for the cache codec");
+        }
+        out.writeByte(unscaled.length);
+        out.write(unscaled);
+        out.writeInt(value.scale());
+    }
+
+    @Nullable
+    private static BigDecimal readDecimal(DataInputStream in) throws IOException {
+        int length = in.readUnsignedByte();
+        if (length == 0xFF) {
+            return null;
+        }
+        byte[] unscaled = new byte[length];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), in.readInt());
+    }
+
+    private static void writeDate(DataOutputStream out, @Nullable LocalDate date) throws IOException {
+        out.writeLong(date == null ? Long.MIN_VALUE : date.toEpochDay());
+    }
+
+    @Nullable
+    private static LocalDate readDate(DataInputStream in) throws IOException {
+        long epochDay = in.readLong();
+        return epochDay == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    private static void writeInteger(DataOutputStream out, @Nullable Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    @Nullable
+    private static Integer readInteger(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    private static void writeInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) (value >>> 24);
+        target[offset + 1] = (byte) (value >>> 16);
+        target[offset + 2] = (byte) (value >>> 8);
+        target[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] source, int offset) {
+        return ((source[offset] & 0xFF) << 24) | ((source[offset + 1] & 0xFF) << 16)
+                | ((source[offset + 2] & 0xFF) << 8) | (source[offset + 3] & 0xFF);
+    }
+}
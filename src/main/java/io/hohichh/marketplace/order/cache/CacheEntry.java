@@ -0,0 +1,42 @@
+package io.hohichh.marketplace.order.cache;
+
+import org.springframework.lang.Nullable;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+//NOTE: envelope stored in redis instead of the bare cached value. It keeps what is needed
+//to refresh a hot entry shortly before it expires (XFetch): the expiry time and how long
+//the value took to compute.
+public record CacheEntry(
+        @Nullable Object value,
+        long expiresAt,
+        long computeMillis
+) implements Serializable {
+
+    public static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    public static CacheEntry of(@Nullable Object value, @Nullable Duration timeToLive, long computeMillis) {
+        long expiresAt = timeToLive == null || timeToLive.isZero()
+                ? NO_EXPIRY
+                : System.currentTimeMillis() + timeToLive.toMillis();
+        return new CacheEntry(value, expiresAt, computeMillis);
+    }
+
+    //entries written before envelopes were introduced are treated as never expiring
+    public static CacheEntry wrap(@Nullable Object stored) {
+        return stored instanceof CacheEntry entry ? entry : new CacheEntry(stored, NO_EXPIRY, 0);
+    }
+
+    //the closer the expiry and the more expensive the value, the more likely a caller refreshes it;
+    //minDeltaMillis keeps cheap loads and bulk-written entries (computeMillis 0) refreshing at all
+    public boolean shouldRefreshEarly(long now, double beta, long minDeltaMillis) {
+        if (expiresAt == NO_EXPIRY) {
+            return false;
+        }
+        double delta = Math.max(computeMillis, minDeltaMillis);
+        double gap = -delta * beta * Math.log(ThreadLocalRandom.current().nextDouble());
+        return now + gap >= expiresAt;
+    }
+}
@@ -0,0 +1,80 @@
+package io.hohichh.marketplace.order.cache;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+//NOTE: tells other instances to drop their in-process copies of a cache key.
+//Messages look like "<node id>|<cache name>|<keys>", an empty key means the whole cache.
+//Several keys are separated by new lines, so bulk evictions send one message per batch.
+//Redis pub/sub is fire-and-forget, a lost message is covered by the local cache TTL.
+@Component
+@Slf4j
+public class CacheInvalidationBus implements MessageListener {
+    private static final String SEPARATOR = "|";
+    private static final String KEY_SEPARATOR = "\n";
+
+    private final StringRedisTemplate redisTemplate;
+    @Getter
+    private final String channel;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<BiConsumer<String, String>> listeners = new CopyOnWriteArrayList<>();
+
+    public CacheInvalidationBus(StringRedisTemplate redisTemplate,
+                                @Value("${application.cache.invalidation-channel:cache-invalidation}") String channel) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+    }
+
+    public void addListener(BiConsumer<String, String> listener) {
+        listeners.add(listener);
+    }
+
+    public void publish(String cacheName, @Nullable String key) {
+        String message = nodeId + SEPARATOR + cacheName + SEPARATOR + (key == null ? "" : key);
+        try {
+            redisTemplate.convertAndSend(channel, message);
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish invalidation of {}::{}", cacheName, key, e);
+        }
+    }
+
+    //drops the keys on this instance as well, for callers that bypass the cache abstraction
+    public void invalidate(String cacheName, Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        keys.forEach(key -> listeners.forEach(listener -> listener.accept(cacheName, key)));
+        publish(cacheName, String.join(KEY_SEPARATOR, keys));
+    }
+
+    @Override
+    public void onMessage(Message message, @Nullable byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+
+        if (parts[2].isEmpty()) {
+            log.debug("Invalidating local copy of {}", parts[1]);
+            listeners.forEach(listener -> listener.accept(parts[1], null));
+            return;
+        }
+        for (String key : parts[2].split(KEY_SEPARATOR)) {
+            log.debug("Invalidating local copy of {}::{}", parts[1], key);
+            listeners.forEach(listener -> listener.accept(parts[1], key));
+        }
+    }
+}
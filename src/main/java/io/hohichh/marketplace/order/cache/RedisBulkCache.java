@@ -0,0 +1,118 @@
+package io.hohichh.marketplace.order.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+
+//NOTE: multi-key access to entries of the spring-managed redis caches:
+//reads are done with a single MGET, writes with one pipelined batch.
+//Values are stored in the same CacheEntry envelope the cache manager uses.
+//Bulk evictions also drop the in-process copies through the invalidation bus.
+@Component
+public class RedisBulkCache {
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final CacheInvalidationBus invalidationBus;
+    private final Duration timeToLive;
+    private final int batchSize;
+
+    private static final Logger log = LoggerFactory.getLogger(RedisBulkCache.class);
+
+    public RedisBulkCache(@Qualifier("cacheRedisTemplate") RedisTemplate<String, Object> redisTemplate,
+                          CacheInvalidationBus invalidationBus,
+                          CacheProperties cacheProperties,
+                          @Value("${application.cache.bulk-batch-size:1000}") int batchSize) {
+        this.redisTemplate = redisTemplate;
+        this.invalidationBus = invalidationBus;
+        this.timeToLive = cacheProperties.getRedis().getTimeToLive();
+        this.batchSize = batchSize;
+    }
+
+    public <K, V> Map<K, V> getAll(String cacheName, Collection<K> keys, Class<V> type) {
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+
+        List<K> keyList = new ArrayList<>(keys);
+        List<Object> values;
+        try {
+            values = redisTemplate.opsForValue().multiGet(
+                    keyList.stream().map(key -> toRedisKey(cacheName, key)).toList());
+        } catch (SerializationException e) {
+            //one unreadable entry fails the whole MGET, the callers load all keys instead
+            log.warn("Cache {}: unreadable entry among {} keys, treating them as misses", cacheName, keyList.size(), e);
+            return new HashMap<>();
+        }
+
+        Map<K, V> hits = new HashMap<>();
+        if (values == null) {
+            return hits;
+        }
+        for (int i = 0; i < keyList.size(); i++) {
+            Object value = values.get(i) == null ? null : CacheEntry.wrap(values.get(i)).value();
+            if (type.isInstance(value)) {
+                hits.put(keyList.get(i), type.cast(value));
+            }
+        }
+
+        log.debug("Cache {}: {} of {} keys found", cacheName, hits.size(), keyList.size());
+        return hits;
+    }
+
+    public void putAll(String cacheName, Map<?, ?> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                entries.forEach((key, value) -> {
+                    CacheEntry entry = CacheEntry.of(value, timeToLive, 0);
+                    if (timeToLive == null || timeToLive.isZero()) {
+                        operations.opsForValue().set(toRedisKey(cacheName, key), entry);
+                    } else {
+                        operations.opsForValue().set(toRedisKey(cacheName, key), entry, timeToLive);
+                    }
+                });
+                return null;
+            }
+        });
+
+        log.debug("Cache {}: {} entries stored", cacheName, entries.size());
+    }
+
+    //one pipelined round trip and one invalidation message per batch of keys
+    public void evictAll(String cacheName, Collection<?> keys) {
+        List<String> localKeys = keys.stream().map(Object::toString).distinct().toList();
+        for (int from = 0; from < localKeys.size(); from += batchSize) {
+            List<String> batch = localKeys.subList(from, Math.min(from + batchSize, localKeys.size()));
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) throws DataAccessException {
+                    batch.forEach(key -> operations.delete(toRedisKey(cacheName, key)));
+                    return null;
+                }
+            });
+            invalidationBus.invalidate(cacheName, batch);
+        }
+
+        log.debug("Cache {}: {} entries evicted", cacheName, localKeys.size());
+    }
+
+    private String toRedisKey(String cacheName, Object key) {
+        return cacheName + "::" + key;
+    }
+}
@@ -0,0 +1,193 @@
+package io.hohichh.marketplace.order.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+//NOTE: protects the delegate from cache stampedes on @Cacheable(sync = true) methods:
+//concurrent misses of one key share a single load, and hot entries are refreshed
+//by one caller before they expire while the others keep reading the current value.
+//Null values are never stored, so the delegate's null policy can't be bypassed by the envelope.
+@Slf4j
+public class StampedeProtectedCache implements Cache {
+    private final Cache delegate;
+    private final Duration timeToLive;
+    private final double earlyRefreshBeta;
+    private final long earlyRefreshMinDeltaMillis;
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+
+    public StampedeProtectedCache(Cache delegate, @Nullable Duration timeToLive, double earlyRefreshBeta,
+                                  Duration earlyRefreshMinDelta) {
+        this.delegate = delegate;
+        this.timeToLive = timeToLive;
+        this.earlyRefreshBeta = earlyRefreshBeta;
+        this.earlyRefreshMinDeltaMillis = earlyRefreshMinDelta.toMillis();
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper get(Object key) {
+        CacheEntry entry = lookup(key);
+        return entry == null ? null : new SimpleValueWrapper(entry.value());
+    }
+
+    @Override
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, @Nullable Class<T> type) {
+        CacheEntry entry = lookup(key);
+        if (entry == null) {
+            return null;
+        }
+        Object value = entry.value();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        CacheEntry entry = lookup(key);
+        if (entry != null) {
+            if (!entry.shouldRefreshEarly(System.currentTimeMillis(), earlyRefreshBeta, earlyRefreshMinDeltaMillis)) {
+                return (T) entry.value();
+            }
+            return (T) refreshEarly(key, valueLoader, entry);
+        }
+
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = loading.putIfAbsent(key, load);
+        if (inFlight != null) {
+            return (T) join(key, valueLoader, inFlight);
+        }
+
+        //another load could have finished between the lookup and the claim
+        CacheEntry loaded = lookup(key);
+        if (loaded != null) {
+            loading.remove(key, load);
+            load.complete(loaded.value());
+            return (T) loaded.value();
+        }
+        return (T) loadAndStore(key, valueLoader, load, false);
+    }
+
+    private Object refreshEarly(Object key, Callable<?> valueLoader, CacheEntry current) {
+        CompletableFuture<Object> refresh = new CompletableFuture<>();
+        if (loading.putIfAbsent(key, refresh) != null) {
+            return current.value();
+        }
+
+        try {
+            log.debug("Cache {}: refreshing key {} ahead of expiry", getName(), key);
+            return loadAndStore(key, valueLoader, refresh, true);
+        } catch (ValueRetrievalException e) {
+            //the current value has not expired yet, so it is still fine to serve it
+            log.warn("Cache {}: early refresh of key {} failed", getName(), key, e.getCause());
+            return current.value();
+        }
+    }
+
+    //a refresh replaces the value other instances may hold, a fill after a miss only adds one
+    private Object loadAndStore(Object key, Callable<?> valueLoader, CompletableFuture<Object> load,
+                                boolean replace) {
+        try {
+            long start = System.nanoTime();
+            Object value = valueLoader.call();
+            long computeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            if (value != null && replace) {
+                delegate.put(key, CacheEntry.of(value, timeToLive, computeMillis));
+            } else if (value != null) {
+                delegate.putIfAbsent(key, CacheEntry.of(value, timeToLive, computeMillis));
+            }
+            load.complete(value);
+            return value;
+        } catch (Exception e) {
+            load.completeExceptionally(e);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            loading.remove(key, load);
+        }
+    }
+
+    private Object join(Object key, Callable<?> valueLoader, CompletableFuture<Object> inFlight) {
+        try {
+            return inFlight.get();
+        } catch (ExecutionException e) {
+            throw new ValueRetrievalException(key, valueLoader, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(Object key, @Nullable Object value) {
+        if (value == null) {
+            //the previous value must not outlive the write of "no value"
+            delegate.evict(key);
+            return;
+        }
+        delegate.put(key, CacheEntry.of(value, timeToLive, 0));
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+        if (value == null) {
+            return get(key);
+        }
+        ValueWrapper existing = delegate.putIfAbsent(key, CacheEntry.of(value, timeToLive, 0));
+        return existing == null ? null : new SimpleValueWrapper(CacheEntry.wrap(existing.get()).value());
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+
+    @Nullable
+    private CacheEntry lookup(Object key) {
+        ValueWrapper wrapper = delegate.get(key);
+        return wrapper == null ? null : CacheEntry.wrap(wrapper.get());
+    }
+}
@@ -0,0 +1,48 @@
+package io.hohichh.marketplace.order.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class StampedeProtectedCacheManager implements CacheManager {
+    private final CacheManager delegate;
+    private final Duration timeToLive;
+    private final double earlyRefreshBeta;
+    private final Duration earlyRefreshMinDelta;
+
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public StampedeProtectedCacheManager(CacheManager delegate, @Nullable Duration timeToLive,
+                                         double earlyRefreshBeta, Duration earlyRefreshMinDelta) {
+        this.delegate = delegate;
+        this.timeToLive = timeToLive;
+        this.earlyRefreshBeta = earlyRefreshBeta;
+        this.earlyRefreshMinDelta = earlyRefreshMinDelta;
+    }
+
+    @Override
+    @Nullable
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+
+        Cache target = delegate.getCache(name);
+        if (target == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name,
+                cacheName -> new StampedeProtectedCache(target, timeToLive, earlyRefreshBeta, earlyRefreshMinDelta));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+}
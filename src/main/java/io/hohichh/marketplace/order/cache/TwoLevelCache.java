@@ -0,0 +1,204 @@
+package io.hohichh.marketplace.order.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.lang.Nullable;
+
+import java.util.concurrent.Callable;
+
+//NOTE: in-process (L1) copy in front of the shared redis cache (L2).
+//Replacing writes, evictions and clears are published on the invalidation bus, so other
+//instances drop their L1 copy; L1 entries also expire on their own. Fills after a miss
+//(get with a loader, putIfAbsent) store a value nobody holds yet and are not published.
+@Slf4j
+public class TwoLevelCache implements Cache {
+    private final Cache remote;
+    private final com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local;
+    private final CacheInvalidationBus invalidationBus;
+
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+
+    public TwoLevelCache(Cache remote,
+                         com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local,
+                         CacheInvalidationBus invalidationBus,
+                         MeterRegistry meterRegistry) {
+        this.remote = remote;
+        this.local = local;
+        this.invalidationBus = invalidationBus;
+
+        this.localHits = requestCounter(meterRegistry, "l1", "hit");
+        this.localMisses = requestCounter(meterRegistry, "l1", "miss");
+        this.remoteHits = requestCounter(meterRegistry, "l2", "hit");
+        this.remoteMisses = requestCounter(meterRegistry, "l2", "miss");
+        hitRatioGauge(meterRegistry, "l1", localHits, localMisses);
+        hitRatioGauge(meterRegistry, "l2", remoteHits, remoteMisses);
+    }
+
+    @Override
+    public String getName() {
+        return remote.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper get(Object key) {
+        String localKey = toLocalKey(key);
+        ValueWrapper wrapper = local.getIfPresent(localKey);
+        if (wrapper != null) {
+            localHits.increment();
+            return wrapper;
+        }
+        localMisses.increment();
+
+        wrapper = readRemote(key);
+        if (wrapper == null) {
+            remoteMisses.increment();
+            return null;
+        }
+        remoteHits.increment();
+        local.put(localKey, wrapper);
+        return wrapper;
+    }
+
+    @Override
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, @Nullable Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper == null) {
+            return null;
+        }
+        Object value = wrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        remote.put(key, value);
+        local.put(toLocalKey(key), new SimpleValueWrapper(value));
+        return value;
+    }
+
+    @Override
+    public void put(Object key, @Nullable Object value) {
+        remote.put(key, value);
+        local.put(toLocalKey(key), new SimpleValueWrapper(value));
+        invalidationBus.publish(getName(), toLocalKey(key));
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+        ValueWrapper existing = remote.putIfAbsent(key, value);
+        if (existing != null) {
+            local.put(toLocalKey(key), existing);
+            return existing;
+        }
+
+        local.put(toLocalKey(key), new SimpleValueWrapper(value));
+        return null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        local.invalidate(toLocalKey(key));
+        invalidationBus.publish(getName(), toLocalKey(key));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = remote.evictIfPresent(key);
+        local.invalidate(toLocalKey(key));
+        invalidationBus.publish(getName(), toLocalKey(key));
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        invalidationBus.publish(getName(), null);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = remote.invalidate();
+        local.invalidateAll();
+        invalidationBus.publish(getName(), null);
+        return invalidated;
+    }
+
+    //an entry this instance can't decode is dropped and reloaded instead of failing the read
+    @Nullable
+    private ValueWrapper readRemote(Object key) {
+        try {
+            return remote.get(key);
+        } catch (SerializationException e) {
+            log.warn("Cache {}: unreadable entry for key {}, treating it as a miss", getName(), key, e);
+            remote.evict(key);
+            return null;
+        }
+    }
+
+    void invalidateLocal(@Nullable String key) {
+        if (key == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(key);
+        }
+    }
+
+    //keys travel between instances as strings, the same way redis keys are built
+    private static String toLocalKey(Object key) {
+        return key.toString();
+    }
+
+    private Counter requestCounter(MeterRegistry meterRegistry, String level, String result) {
+        return Counter.builder("cache.level.requests")
+                .tag("cache", getName())
+                .tag("level", level)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private void hitRatioGauge(MeterRegistry meterRegistry, String level, Counter hits, Counter misses) {
+        Gauge.builder("cache.level.hit.ratio", () -> {
+                    double total = hits.count() + misses.count();
+                    return total == 0 ? 0 : hits.count() / total;
+                })
+                .tag("cache", getName())
+                .tag("level", level)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,70 @@
+package io.hohichh.marketplace.order.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class TwoLevelCacheManager implements CacheManager {
+    private final CacheManager remote;
+    private final long localMaxSize;
+    private final Duration localTimeToLive;
+    private final CacheInvalidationBus invalidationBus;
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager remote,
+                                long localMaxSize,
+                                Duration localTimeToLive,
+                                CacheInvalidationBus invalidationBus,
+                                MeterRegistry meterRegistry) {
+        this.remote = remote;
+        this.localMaxSize = localMaxSize;
+        this.localTimeToLive = localTimeToLive;
+        this.invalidationBus = invalidationBus;
+        this.meterRegistry = meterRegistry;
+
+        invalidationBus.addListener(this::invalidateLocal);
+    }
+
+    @Override
+    @Nullable
+    public Cache getCache(String name) {
+        TwoLevelCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+
+        Cache target = remote.getCache(name);
+        if (target == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, cacheName -> new TwoLevelCache(
+                target,
+                Caffeine.newBuilder()
+                        .maximumSize(localMaxSize)
+                        .expireAfterWrite(localTimeToLive)
+                        .build(),
+                invalidationBus,
+                meterRegistry));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remote.getCacheNames();
+    }
+
+    private void invalidateLocal(String cacheName, @Nullable String key) {
+        TwoLevelCache cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.invalidateLocal(key);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package io.hohichh.marketplace.order.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.hohichh.marketplace.order.dto.UserDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.circuitbreaker.CircuitBreakerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+//NOTE: user lookups are started on virtual threads as soon as the user id is known,
+//so the user-service round trip overlaps the database work of the caller.
+//Profiles are kept in a bounded local cache: fresh entries are served without a call,
+//concurrent misses for one user share a single in-flight call, and entries past their
+//ttl are still served while user-service is unavailable.
+@Component
+@Slf4j
+public class UserProfileLookup {
+    private final UserServiceClient userClient;
+    private final CircuitBreakerFactory<?, ?> circuitBreakerFactory;
+    private final Clock clock;
+    private final Duration defaultBudget;
+    private final Duration timeToLive;
+
+    private final Cache<UUID, CachedProfile> profiles;
+    private final ConcurrentMap<UUID, CompletableFuture<UserDto>> inFlightLookups = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+    private final Counter staleServed;
+
+    private record CachedProfile(UserDto user, Instant loadedAt) {
+    }
+
+    public UserProfileLookup(UserServiceClient userClient,
+                             CircuitBreakerFactory<?, ?> circuitBreakerFactory,
+                             Clock clock,
+                             MeterRegistry meterRegistry,
+                             @Value("${application.config.user-lookup-budget:10s}") Duration defaultBudget,
+                             @Value("${application.user-cache.time-to-live:60s}") Duration timeToLive,
+                             @Value("${application.user-cache.stale-time-to-live:30m}") Duration staleTimeToLive,
+                             @Value("${application.user-cache.max-size:10000}") long maxSize) {
+        this.userClient = userClient;
+        this.circuitBreakerFactory = circuitBreakerFactory;
+        this.clock = clock;
+        this.defaultBudget = defaultBudget;
+        this.timeToLive = timeToLive;
+        this.profiles = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(staleTimeToLive)
+                .build();
+
+        this.hits = userCacheCounter(meterRegistry, "hit");
+        this.misses = userCacheCounter(meterRegistry, "miss");
+        this.coalesced = userCacheCounter(meterRegistry, "coalesced");
+        this.staleServed = userCacheCounter(meterRegistry, "stale");
+        Gauge.builder("user.profile.cache.size", profiles, Cache::estimatedSize)
+                .register(meterRegistry);
+    }
+
+    public CompletableFuture<UserDto> lookupAsync(String token, UUID userId) {
+        CachedProfile cached = profiles.getIfPresent(userId);
+        if (cached != null && isFresh(cached)) {
+            hits.increment();
+            return CompletableFuture.completedFuture(cached.user());
+        }
+
+        CompletableFuture<UserDto> startedLookup = new CompletableFuture<>();
+        CompletableFuture<UserDto> lookup = inFlightLookups.putIfAbsent(userId, startedLookup);
+        if (lookup != null) {
+            coalesced.increment();
+            return lookup;
+        }
+
+        misses.increment();
+        CompletableFuture.supplyAsync(() -> loadProfile(token, userId), executor)
+                .whenComplete((user, error) -> {
+                    inFlightLookups.remove(userId, startedLookup);
+                    if (error != null) {
+                        startedLookup.completeExceptionally(error);
+                    } else {
+                        startedLookup.complete(user);
+                    }
+                });
+        return startedLookup;
+    }
+
+    //returns null when the lookup fails or doesn't complete within the budget
+    public UserDto await(CompletableFuture<UserDto> lookup, Duration budget) {
+        Duration effectiveBudget = budget == null || budget.compareTo(defaultBudget) > 0 ? defaultBudget : budget;
+        try {
+            return lookup.get(effectiveBudget.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("User lookup exceeded latency budget of {} ms", effectiveBudget.toMillis());
+            return null;
+        } catch (ExecutionException e) {
+            log.warn("User lookup failed: {}", e.getCause().getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private UserDto loadProfile(String token, UUID userId) {
+        return circuitBreakerFactory.create("user-service").run(
+                () -> {
+                    UserDto user = userClient.getUserById(token, userId);
+                    if (user != null) {
+                        profiles.put(userId, new CachedProfile(user, clock.instant()));
+                    }
+                    return user;
+                },
+                throwable -> {
+                    log.warn("Failed to get user info for id {}: {}", userId, throwable.getMessage());
+                    return staleProfile(userId);
+                }
+        );
+    }
+
+    private UserDto staleProfile(UUID userId) {
+        CachedProfile stale = profiles.getIfPresent(userId);
+        if (stale == null) {
+            return null;
+        }
+
+        staleServed.increment();
+        log.debug("Serving stale profile of user {} loaded at {}", userId, stale.loadedAt());
+        return stale.user();
+    }
+
+    private boolean isFresh(CachedProfile cached) {
+        return cached.loadedAt().plus(timeToLive).isAfter(clock.instant());
+    }
+
+    private static Counter userCacheCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("user.profile.cache.requests")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,96 @@
+package io.hohichh.marketplace.order.config;
+
+import io.hohichh.marketplace.order.cache.BinaryCacheValueSerializer;
+import io.hohichh.marketplace.order.cache.CacheInvalidationBus;
+import io.hohichh.marketplace.order.cache.StampedeProtectedCacheManager;
+import io.hohichh.marketplace.order.cache.TwoLevelCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+
+    //NOTE: "binary" is the compact versioned codec, "jdk" is plain java serialization.
+    //The binary codec reads jdk-serialized entries, so switching to it needs no cache flush.
+    @Bean
+    public RedisSerializer<Object> cacheValueSerializer(
+            @Value("${application.cache.codec:binary}") String codec,
+            @Value("${application.cache.codec.compression-threshold:1024}") int compressionThreshold) {
+        return switch (codec) {
+            case "binary" -> new BinaryCacheValueSerializer(getClass().getClassLoader(), compressionThreshold);
+            case "jdk" -> RedisSerializer.java(getClass().getClassLoader());
+            default -> throw new IllegalArgumentException("Unknown cache codec: " + codec);
+        };
+    }
+
+    @Bean
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                     CacheProperties cacheProperties,
+                                     RedisSerializer<Object> cacheValueSerializer,
+                                     CacheInvalidationBus invalidationBus,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${application.cache.early-refresh-beta:1.0}") double earlyRefreshBeta,
+                                     @Value("${application.cache.early-refresh-min-delta:1s}") Duration earlyRefreshMinDelta,
+                                     @Value("${application.cache.local.max-size:10000}") long localMaxSize,
+                                     @Value("${application.cache.local.time-to-live:30s}") Duration localTimeToLive) {
+        CacheProperties.Redis redisProperties = cacheProperties.getRedis();
+
+        RedisCacheConfiguration cacheConfiguration =
+                RedisCacheConfiguration.defaultCacheConfig(getClass().getClassLoader())
+                        .serializeValuesWith(RedisSerializationContext.SerializationPair
+                                .fromSerializer(cacheValueSerializer));
+        if (redisProperties.getTimeToLive() != null) {
+            cacheConfiguration = cacheConfiguration.entryTtl(redisProperties.getTimeToLive());
+        }
+        if (!redisProperties.isCacheNullValues()) {
+            cacheConfiguration = cacheConfiguration.disableCachingNullValues();
+        }
+
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(cacheConfiguration)
+                .build();
+        redisCacheManager.initializeCaches();
+
+        //NOTE: stampede protection -> in-process L1 -> redis L2
+        TwoLevelCacheManager twoLevelCacheManager = new TwoLevelCacheManager(
+                redisCacheManager, localMaxSize, localTimeToLive, invalidationBus, meterRegistry);
+
+        return new StampedeProtectedCacheManager(
+                twoLevelCacheManager, redisProperties.getTimeToLive(), earlyRefreshBeta, earlyRefreshMinDelta);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                           CacheInvalidationBus invalidationBus) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(invalidationBus, new ChannelTopic(invalidationBus.getChannel()));
+        return container;
+    }
+
+    //NOTE: serializers must match the ones used by the Redis cache manager,
+    //otherwise bulk reads can't decode entries written through @Cacheable.
+    @Bean
+    public RedisTemplate<String, Object> cacheRedisTemplate(RedisConnectionFactory connectionFactory,
+                                                            RedisSerializer<Object> cacheValueSerializer) {
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setValueSerializer(cacheValueSerializer);
+        return template;
+    }
+}
@@ -0,0 +1,14 @@
+package io.hohichh.marketplace.order.config;
+
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaProducerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class KafkaProducerConfig {
+
+    @Bean
+    public DefaultKafkaProducerFactoryCustomizer producerProfileCustomizer(KafkaProducerProperties properties) {
+        return producerFactory -> producerFactory.updateConfigs(properties.profile().overrides());
+    }
+}
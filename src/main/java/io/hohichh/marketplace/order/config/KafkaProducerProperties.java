@@ -0,0 +1,21 @@
+package io.hohichh.marketplace.order.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+//NOTE: max-in-flight bounds the sends waiting for a broker acknowledgement. When it is reached
+//WAIT waits up to block-timeout for a free slot and SHED rejects the send right away;
+//either way the send fails fast instead of filling the producer buffer.
+@ConfigurationProperties("application.kafka.producer")
+public record KafkaProducerProperties(
+        @DefaultValue("default") ProducerProfile profile,
+        @DefaultValue("10000") int maxInFlight,
+        @DefaultValue("wait") Overflow overflow,
+        @DefaultValue("100ms") Duration blockTimeout
+) {
+    public enum Overflow {
+        WAIT, SHED
+    }
+}
@@ -0,0 +1,14 @@
+package io.hohichh.marketplace.order.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+//NOTE: limits of cursor (keyset) pages, offset pages are limited by spring.data.web.pageable.*
+@ConfigurationProperties("application.pagination")
+public record PaginationProperties(
+        @DefaultValue("100") int maxPageSize
+) {
+    public int limitPageSize(int requestedSize) {
+        return Math.clamp(requestedSize, 1, maxPageSize);
+    }
+}
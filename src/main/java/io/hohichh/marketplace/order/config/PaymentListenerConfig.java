@@ -0,0 +1,64 @@
+package io.hohichh.marketplace.order.config;
+
+import io.hohichh.marketplace.order.kafka.PaymentDltReplayer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+
+import java.time.Duration;
+
+//NOTE: the batch and parallel payment listeners get their own container factories; the single
+//mode keeps the default one and its retry topics (see OrderConsumer)
+@Configuration
+public class PaymentListenerConfig {
+
+    //a failed poll is redelivered with backoff, records of a poll failing every attempt go to the DLT
+    @Bean
+    @ConditionalOnProperty(value = "application.payments.listener.mode", havingValue = "batch")
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchPaymentListenerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            DeadLetterPublishingRecoverer paymentDeadLetterRecoverer,
+            @Value("${application.payments.listener.retry-attempts:3}") int retryAttempts,
+            @Value("${application.payments.listener.retry-backoff:1s}") Duration retryBackoff) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(retryAttempts);
+        backOff.setInitialInterval(retryBackoff.toMillis());
+        backOff.setMultiplier(2);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(paymentDeadLetterRecoverer, backOff));
+        return factory;
+    }
+
+    //shared by the batch error handler and the parallel listener, which publishes exhausted records itself
+    @Bean
+    public DeadLetterPublishingRecoverer paymentDeadLetterRecoverer(KafkaTemplate<String, Object> kafkaTemplate) {
+        return new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, error) -> new TopicPartition(PaymentDltReplayer.DLT_TOPIC, -1));
+    }
+
+    //the parallel payment listener commits offsets itself
+    @Bean
+    @ConditionalOnProperty(value = "application.payments.listener.mode", havingValue = "parallel")
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> parallelPaymentListenerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
+    }
+}
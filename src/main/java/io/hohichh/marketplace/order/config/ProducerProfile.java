@@ -0,0 +1,33 @@
+package io.hohichh.marketplace.order.config;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+import java.util.Map;
+
+//NOTE: batching presets for the kafka producer, DEFAULT leaves spring.kafka.producer.* as configured.
+//Compare them with OrderProducerBenchmark before switching.
+public enum ProducerProfile {
+    DEFAULT(Map.of()),
+    LATENCY(Map.of(
+            ProducerConfig.LINGER_MS_CONFIG, 0,
+            ProducerConfig.BATCH_SIZE_CONFIG, 16_384,
+            ProducerConfig.COMPRESSION_TYPE_CONFIG, "none")),
+    BALANCED(Map.of(
+            ProducerConfig.LINGER_MS_CONFIG, 20,
+            ProducerConfig.BATCH_SIZE_CONFIG, 65_536,
+            ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4")),
+    THROUGHPUT(Map.of(
+            ProducerConfig.LINGER_MS_CONFIG, 100,
+            ProducerConfig.BATCH_SIZE_CONFIG, 262_144,
+            ProducerConfig.COMPRESSION_TYPE_CONFIG, "zstd"));
+
+    private final Map<String, Object> overrides;
+
+    ProducerProfile(Map<String, Object> overrides) {
+        this.overrides = overrides;
+    }
+
+    public Map<String, Object> overrides() {
+        return overrides;
+    }
+}
@@ -1,22 +1,35 @@
 package io.hohichh.marketplace.order.controller;
 
+import io.hohichh.marketplace.order.dto.CountMode;
+import io.hohichh.marketplace.order.dto.CursorPageDto;
+import io.hohichh.marketplace.order.dto.DeadLetterReplayResultDto;
+import io.hohichh.marketplace.order.dto.NewOrderDto;
 import io.hohichh.marketplace.order.dto.NewStatusOrderDto;
+import io.hohichh.marketplace.order.dto.OrderBatchResultDto;
 import io.hohichh.marketplace.order.dto.OrderDto;
+import io.hohichh.marketplace.order.dto.OrderSearchFilter;
 import io.hohichh.marketplace.order.dto.OrderWithItemsDto;
 import io.hohichh.marketplace.order.dto.item.NewOrderItemDto;
 import io.hohichh.marketplace.order.model.order.Status;
+import io.hohichh.marketplace.order.service.IdempotencyGuard;
 import io.hohichh.marketplace.order.service.OrderService;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
+import java.security.Principal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
 
@@ -25,15 +38,21 @@ import java.util.UUID;
 @AllArgsConstructor
 public class RestOrderController {
     private final OrderService orderService;
+    private final IdempotencyGuard idempotencyGuard;
 
     private static final Logger log = LoggerFactory.getLogger(RestOrderController.class);
 
     @PostMapping
     public ResponseEntity<OrderWithItemsDto> createOrder
-            (@RequestBody List<NewOrderItemDto> items) {
+            (@RequestBody List<NewOrderItemDto> items,
+             @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+             Principal principal) {
         log.debug("Received POST request to create order");
 
-        OrderWithItemsDto order = orderService.createOrder(items);
+        OrderWithItemsDto order = idempotencyKey == null
+                ? orderService.createOrder(items)
+                : idempotencyGuard.execute(principal.getName(), idempotencyKey, items, OrderWithItemsDto.class,
+                        () -> orderService.createOrder(items));
 
         URI location = ServletUriComponentsBuilder
                 .fromCurrentRequest()
@@ -45,6 +64,17 @@ public class RestOrderController {
         return ResponseEntity.created(location).body(order);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<OrderBatchResultDto>> createOrders(
+            @RequestBody List<NewOrderDto> orders) {
+        log.debug("Received POST request to create batch of {} orders", orders.size());
+
+        List<OrderBatchResultDto> results = orderService.createOrders(orders);
+
+        log.info("Create order batch request processed successfully");
+        return ResponseEntity.ok(results);
+    }
+
     @PatchMapping("/{id}")
     public ResponseEntity<OrderWithItemsDto> updateOrderStatus(
             @PathVariable UUID id,
@@ -95,17 +125,90 @@ public class RestOrderController {
         return ResponseEntity.ok(orders);
     }
 
+    //NOTE: cursor mode of the user order history, selected by the size parameter
+    @GetMapping(params = {"user-id", "size"})
+    public ResponseEntity<CursorPageDto<OrderDto>> getOrdersByUserId(
+            @RequestParam("user-id") UUID userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam int size
+    ) {
+        log.debug("Received GET request to get orders page by user id");
+
+        CursorPageDto<OrderDto> orders = orderService.getOrdersByUserId(userId, cursor, size);
+
+        log.info("Get orders page by user id request processed successfully");
+        return ResponseEntity.ok(orders);
+    }
+
+    //NOTE: count=ESTIMATED trades an exact total for a planner estimate,
+    //count=NONE drops the total and answers with a slice
     @GetMapping
-    public ResponseEntity<Page<OrderDto>> getOrders(
+    public ResponseEntity<Slice<OrderDto>> getOrders(
             @RequestParam(required = false) List<UUID> ids,
             @RequestParam(required = false) List<Status> statuses,
+            @RequestParam(name = "user-ids", required = false) List<UUID> userIds,
+            @RequestParam(name = "created-from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdFrom,
+            @RequestParam(name = "created-to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdTo,
+            @RequestParam(defaultValue = "EXACT") CountMode count,
             Pageable pageable) {
         log.debug("Received GET request to get orders");
 
-        Page<OrderDto> orders = orderService.searchOrders(ids, statuses, pageable);
+        OrderSearchFilter filter = new OrderSearchFilter(ids, statuses, userIds, createdFrom, createdTo);
+        Slice<OrderDto> orders = orderService.searchOrders(filter, count, pageable);
 
         log.info("Get orders request processed successfully");
         return ResponseEntity.ok(orders);
     }
 
+    //NOTE: streams every matching order as one JSON object per line, newest first
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(required = false) List<UUID> ids,
+            @RequestParam(required = false) List<Status> statuses,
+            @RequestParam(name = "user-ids", required = false) List<UUID> userIds,
+            @RequestParam(name = "created-from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdFrom,
+            @RequestParam(name = "created-to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdTo,
+            @RequestParam(name = "include-items", defaultValue = "false") boolean includeItems) {
+        log.debug("Received GET request to export orders");
+
+        OrderSearchFilter filter = new OrderSearchFilter(ids, statuses, userIds, createdFrom, createdTo);
+        StreamingResponseBody body = orderService.exportOrders(filter, includeItems);
+
+        log.info("Export orders request accepted");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    //NOTE: sends dead-lettered payment events back to the payment topic
+    @PostMapping("/payment-events/dead-letters/replay")
+    public ResponseEntity<DeadLetterReplayResultDto> replayPaymentDeadLetters(
+            @RequestParam(defaultValue = "1000") int limit) {
+        log.debug("Received POST request to replay payment dead letters");
+
+        DeadLetterReplayResultDto result = orderService.replayPaymentDeadLetters(limit);
+
+        log.info("Replay payment dead letters request processed successfully");
+        return ResponseEntity.ok(result);
+    }
+
+    //NOTE: only the page size is taken from the pageable, the position comes from the cursor
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPageDto<OrderDto>> scrollOrders(
+            @RequestParam(required = false) List<UUID> ids,
+            @RequestParam(required = false) List<Status> statuses,
+            @RequestParam(name = "user-ids", required = false) List<UUID> userIds,
+            @RequestParam(name = "created-from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdFrom,
+            @RequestParam(name = "created-to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdTo,
+            @RequestParam(required = false) String cursor,
+            @PageableDefault(size = 20) Pageable pageable) {
+        log.debug("Received GET request to scroll orders");
+
+        OrderSearchFilter filter = new OrderSearchFilter(ids, statuses, userIds, createdFrom, createdTo);
+        CursorPageDto<OrderDto> orders = orderService.scrollOrders(filter, cursor, pageable.getPageSize());
+
+        log.info("Scroll orders request processed successfully");
+        return ResponseEntity.ok(orders);
+    }
+
 }
@@ -1,7 +1,10 @@
 package io.hohichh.marketplace.order.controller;
 
+import io.hohichh.marketplace.order.dto.CursorPageDto;
 import io.hohichh.marketplace.order.dto.product.NewProductDto;
 import io.hohichh.marketplace.order.dto.product.ProductDto;
+import io.hohichh.marketplace.order.dto.product.ProductImportFormat;
+import io.hohichh.marketplace.order.dto.product.ProductImportResultDto;
 import io.hohichh.marketplace.order.service.ProductService;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
@@ -9,10 +12,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.InputStream;
 import java.net.URI;
 import java.util.UUID;
 
@@ -41,6 +47,27 @@ public class RestProductController {
         return ResponseEntity.created(location).body(productDto);
     }
 
+    //NOTE: the body is streamed into the database, it is never read into memory as a whole
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<ProductImportResultDto> importProductsCsv(InputStream body) {
+        logger.debug("Received request to import products from CSV");
+
+        ProductImportResultDto result = productService.importProducts(ProductImportFormat.CSV, body);
+
+        logger.info("Products imported successfully from CSV");
+        return ResponseEntity.ok(result);
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ProductImportResultDto> importProductsNdjson(InputStream body) {
+        logger.debug("Received request to import products from NDJSON");
+
+        ProductImportResultDto result = productService.importProducts(ProductImportFormat.NDJSON, body);
+
+        logger.info("Products imported successfully from NDJSON");
+        return ResponseEntity.ok(result);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ProductDto> updateProduct(
             @PathVariable UUID id,
@@ -74,6 +101,19 @@ public class RestProductController {
         return ResponseEntity.ok(productDtoPage);
     }
 
+    //NOTE: only the page size is taken from the pageable, the position comes from the cursor
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPageDto<ProductDto>> scrollProducts(
+            @RequestParam(required = false) String cursor,
+            @PageableDefault(size = 20) Pageable pageable) {
+        logger.debug("Received request to scroll products (size: {})", pageable.getPageSize());
+
+        CursorPageDto<ProductDto> products = productService.scrollProducts(cursor, pageable.getPageSize());
+
+        logger.info("Product scroll page returned successfully");
+        return ResponseEntity.ok(products);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ProductDto> getProduct(@PathVariable UUID id) {
         logger.debug("Received request to get product with id: {}", id);
@@ -0,0 +1,11 @@
+package io.hohichh.marketplace.order.dto;
+
+//NOTE: how the total of an order search page is obtained
+//EXACT - COUNT(*) over the filtered rows
+//ESTIMATED - row estimate of the Postgres planner, exact on the last page
+//NONE - no total, a slice with "has next" from one extra fetched row
+public enum CountMode {
+    EXACT,
+    ESTIMATED,
+    NONE
+}
@@ -0,0 +1,13 @@
+package io.hohichh.marketplace.order.dto;
+
+import org.springframework.lang.Nullable;
+
+import java.io.Serializable;
+import java.util.List;
+
+//NOTE: nextCursor is null on the last page
+public record CursorPageDto<T>(
+        List<T> content,
+        @Nullable String nextCursor
+) implements Serializable {
+}
@@ -0,0 +1,6 @@
+package io.hohichh.marketplace.order.dto;
+
+public record DeadLetterReplayResultDto(
+        long replayed
+) {
+}
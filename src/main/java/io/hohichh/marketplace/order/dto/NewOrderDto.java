@@ -0,0 +1,16 @@
+package io.hohichh.marketplace.order.dto;
+
+import io.hohichh.marketplace.order.dto.item.NewOrderItemDto;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.UUID;
+
+public record NewOrderDto(
+        @NotNull UUID userId,
+        @NotEmpty @Valid List<NewOrderItemDto> items
+) implements Serializable {
+}
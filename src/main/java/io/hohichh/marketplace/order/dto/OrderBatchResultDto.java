@@ -0,0 +1,13 @@
+package io.hohichh.marketplace.order.dto;
+
+import org.springframework.lang.Nullable;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+public record OrderBatchResultDto(
+        int index,
+        @Nullable UUID orderId,
+        @Nullable String error
+) implements Serializable {
+}
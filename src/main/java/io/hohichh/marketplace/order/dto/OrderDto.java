@@ -2,7 +2,9 @@ package io.hohichh.marketplace.order.dto;
 
 import io.hohichh.marketplace.order.model.order.Status;
 import jakarta.validation.constraints.NotNull;
+import org.springframework.lang.Nullable;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.UUID;
 import java.io.Serializable;
@@ -12,6 +14,8 @@ public record OrderDto(
         @NotNull UUID id,
         @NotNull UUID userId,
         @NotNull Status status,
-        @NotNull LocalDate creationDate
+        @NotNull LocalDate creationDate,
+        @Nullable BigDecimal totalAmount,
+        @Nullable Integer itemCount
 ) implements Serializable {
 }
@@ -0,0 +1,23 @@
+package io.hohichh.marketplace.order.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.hohichh.marketplace.order.dto.item.OrderItemDto;
+import io.hohichh.marketplace.order.model.order.Status;
+import org.springframework.lang.Nullable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+//NOTE: one line of the NDJSON order export, items are left out unless requested
+public record OrderExportDto(
+        UUID id,
+        UUID userId,
+        Status status,
+        LocalDate creationDate,
+        @Nullable BigDecimal totalAmount,
+        @Nullable Integer itemCount,
+        @JsonInclude(JsonInclude.Include.NON_NULL) @Nullable List<OrderItemDto> orderItems
+) {
+}
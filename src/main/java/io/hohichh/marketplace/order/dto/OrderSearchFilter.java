@@ -0,0 +1,19 @@
+package io.hohichh.marketplace.order.dto;
+
+import io.hohichh.marketplace.order.model.order.Status;
+import org.springframework.lang.Nullable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+//NOTE: null or empty criteria are not applied; the date range is inclusive on both ends
+public record OrderSearchFilter(
+        @Nullable List<UUID> ids,
+        @Nullable List<Status> statuses,
+        @Nullable List<UUID> userIds,
+        @Nullable LocalDate createdFrom,
+        @Nullable LocalDate createdTo
+) implements Serializable {
+}
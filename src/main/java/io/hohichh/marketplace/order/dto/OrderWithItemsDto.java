@@ -19,4 +19,8 @@ public record OrderWithItemsDto(
         @Nullable UserDto userDto,
         @Valid List<OrderItemDto> orderItems
 ) implements Serializable {
+
+    public OrderWithItemsDto withUserDto(@Nullable UserDto userDto) {
+        return new OrderWithItemsDto(id, userId, status, creationDate, userDto, orderItems);
+    }
 }
@@ -0,0 +1,8 @@
+package io.hohichh.marketplace.order.dto.product;
+
+//NOTE: CSV input needs the header "id,name,price", NDJSON has one ProductImportLineDto per line.
+//An empty id creates a new product, a known id updates it.
+public enum ProductImportFormat {
+    CSV,
+    NDJSON
+}
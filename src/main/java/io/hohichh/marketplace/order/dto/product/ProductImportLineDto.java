@@ -0,0 +1,12 @@
+package io.hohichh.marketplace.order.dto.product;
+
+import org.springframework.lang.Nullable;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public record ProductImportLineDto(
+        @Nullable UUID id,
+        String name,
+        BigDecimal price) {
+}
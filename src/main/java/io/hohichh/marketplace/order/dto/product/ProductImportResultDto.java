@@ -0,0 +1,8 @@
+package io.hohichh.marketplace.order.dto.product;
+
+//received counts input lines, updated only products whose name or price actually changed
+public record ProductImportResultDto(
+        long received,
+        long inserted,
+        long updated) {
+}
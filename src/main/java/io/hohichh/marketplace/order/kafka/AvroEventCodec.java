@@ -0,0 +1,162 @@
+package io.hohichh.marketplace.order.kafka;
+
+import io.hohichh.marketplace.order.dto.event.OrderCreatedEvent;
+import io.hohichh.marketplace.order.dto.event.PaymentCreatedEvent;
+import io.hohichh.marketplace.order.model.PaymentStatus;
+import org.apache.avro.Conversions;
+import org.apache.avro.Schema;
+import org.apache.avro.data.TimeConversions;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//NOTE: wire format is a zero magic byte, the 4-byte schema id and the Avro binary body.
+//JSON can't start with a zero byte, so both formats can share a topic during the migration.
+//Bodies written with an older schema id are resolved against the newest schema of the same name.
+public class AvroEventCodec {
+    static final byte MAGIC_BYTE = 0;
+    private static final int HEADER_SIZE = 1 + Integer.BYTES;
+
+    static final String ORDER_CREATED = "io.hohichh.marketplace.events.OrderCreatedEvent";
+    static final String PAYMENT_CREATED = "io.hohichh.marketplace.events.PaymentCreatedEvent";
+    private static final Map<Class<?>, String> SCHEMA_NAMES = Map.of(
+            OrderCreatedEvent.class, ORDER_CREATED,
+            PaymentCreatedEvent.class, PAYMENT_CREATED);
+
+    private static volatile AvroEventCodec shared;
+
+    private record Writer(int schemaId, Schema schema, GenericDatumWriter<GenericRecord> datumWriter) {
+    }
+
+    private final EventSchemaRegistry registry;
+    private final GenericData model = new GenericData();
+    private final Map<Class<?>, Writer> writers = new ConcurrentHashMap<>();
+    private final Map<Integer, GenericDatumReader<GenericRecord>> readers = new ConcurrentHashMap<>();
+
+    public AvroEventCodec(EventSchemaRegistry registry) {
+        this.registry = registry;
+        model.addLogicalTypeConversion(new Conversions.DecimalConversion());
+        model.addLogicalTypeConversion(new TimeConversions.LocalTimestampMicrosConversion());
+    }
+
+    //serializers are created by the kafka clients, they share the schemas loaded from the classpath
+    public static AvroEventCodec fromClasspath() {
+        AvroEventCodec codec = shared;
+        if (codec == null) {
+            synchronized (AvroEventCodec.class) {
+                codec = shared;
+                if (codec == null) {
+                    codec = new AvroEventCodec(EventSchemaRegistry.fromClasspath());
+                    shared = codec;
+                }
+            }
+        }
+        return codec;
+    }
+
+    public static boolean isAvro(byte[] data) {
+        return data.length >= HEADER_SIZE && data[0] == MAGIC_BYTE;
+    }
+
+    public byte[] encode(Object event) {
+        Writer writer = writers.computeIfAbsent(event.getClass(), this::writerFor);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+        out.write(MAGIC_BYTE);
+        out.writeBytes(ByteBuffer.allocate(Integer.BYTES).putInt(writer.schemaId()).array());
+        try {
+            BinaryEncoder encoder = EncoderFactory.get().directBinaryEncoder(out, null);
+            writer.datumWriter().write(toRecord(event, writer.schema()), encoder);
+            encoder.flush();
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Failed to encode " + event.getClass().getSimpleName(), e);
+        }
+        return out.toByteArray();
+    }
+
+    public Object decode(byte[] data) {
+        if (!isAvro(data)) {
+            throw new SerializationException("Not an Avro encoded event");
+        }
+        int schemaId = ByteBuffer.wrap(data, 1, Integer.BYTES).getInt();
+        GenericDatumReader<GenericRecord> reader = readers.computeIfAbsent(schemaId, this::readerFor);
+        try {
+            GenericRecord record = reader.read(null,
+                    DecoderFactory.get().binaryDecoder(data, HEADER_SIZE, data.length - HEADER_SIZE, null));
+            return fromRecord(record);
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Failed to decode event with schema id " + schemaId, e);
+        }
+    }
+
+    private Writer writerFor(Class<?> type) {
+        String name = SCHEMA_NAMES.get(type);
+        if (name == null) {
+            throw new SerializationException("No Avro schema for " + type.getName());
+        }
+        int schemaId = registry.latestId(name);
+        Schema schema = registry.schema(schemaId);
+        return new Writer(schemaId, schema, new GenericDatumWriter<>(schema, model));
+    }
+
+    private GenericDatumReader<GenericRecord> readerFor(int schemaId) {
+        Schema writerSchema = registry.schema(schemaId);
+        Schema readerSchema = registry.schema(registry.latestId(writerSchema.getFullName()));
+        return new GenericDatumReader<>(writerSchema, readerSchema, model);
+    }
+
+    private static GenericRecord toRecord(Object event, Schema schema) {
+        GenericRecord record = new GenericData.Record(schema);
+        switch (event) {
+            case OrderCreatedEvent order -> {
+                record.put("orderId", order.orderId());
+                record.put("userId", order.userId());
+                //the schema fixes the scale, an amount with more digits is rejected rather than rounded
+                record.put("amount", order.amount().setScale(2, RoundingMode.UNNECESSARY));
+            }
+            case PaymentCreatedEvent payment -> {
+                record.put("paymentId", payment.paymentId());
+                record.put("orderId", payment.orderId());
+                record.put("userId", payment.userId());
+                record.put("status", new GenericData.EnumSymbol(schema.getField("status").schema(),
+                        payment.status().name()));
+                record.put("timestamp", payment.timestamp());
+            }
+            default -> throw new SerializationException("No Avro schema for " + event.getClass().getName());
+        }
+        return record;
+    }
+
+    private static Object fromRecord(GenericRecord record) {
+        return switch (record.getSchema().getFullName()) {
+            case ORDER_CREATED -> new OrderCreatedEvent(
+                    string(record, "orderId"),
+                    string(record, "userId"),
+                    (BigDecimal) record.get("amount"));
+            case PAYMENT_CREATED -> new PaymentCreatedEvent(
+                    string(record, "paymentId"),
+                    string(record, "orderId"),
+                    string(record, "userId"),
+                    PaymentStatus.valueOf(record.get("status").toString()),
+                    (LocalDateTime) record.get("timestamp"));
+            default -> throw new SerializationException("Unexpected event " + record.getSchema().getFullName());
+        };
+    }
+
+    private static String string(GenericRecord record, String field) {
+        return record.get(field).toString();
+    }
+}
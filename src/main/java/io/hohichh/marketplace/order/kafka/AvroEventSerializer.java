@@ -0,0 +1,23 @@
+package io.hohichh.marketplace.order.kafka;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+//NOTE: value serializer writing OrderCreatedEvent and PaymentCreatedEvent with AvroEventCodec.
+//Switch spring.kafka.producer.value-serializer to it once every consumer of our topics
+//reads the binary format (see DualFormatEventDeserializer).
+public class AvroEventSerializer implements Serializer<Object> {
+    private final AvroEventCodec codec;
+
+    public AvroEventSerializer() {
+        this(AvroEventCodec.fromClasspath());
+    }
+
+    public AvroEventSerializer(AvroEventCodec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return data == null ? null : codec.encode(data);
+    }
+}
@@ -0,0 +1,50 @@
+package io.hohichh.marketplace.order.kafka;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Map;
+
+//NOTE: reads both the Avro format of AvroEventSerializer and the JSON written by JsonSerializer,
+//so producers can switch one by one. JSON is handed to a JsonDeserializer configured with the
+//same spring.json.* properties as before.
+public class DualFormatEventDeserializer implements Deserializer<Object> {
+    private final AvroEventCodec codec;
+    private final JsonDeserializer<Object> json;
+
+    public DualFormatEventDeserializer() {
+        this(AvroEventCodec.fromClasspath(), new JsonDeserializer<>());
+    }
+
+    public DualFormatEventDeserializer(AvroEventCodec codec, JsonDeserializer<Object> json) {
+        this.codec = codec;
+        this.json = json;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        json.configure(configs, isKey);
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        return AvroEventCodec.isAvro(data) ? codec.decode(data) : json.deserialize(topic, data);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        return AvroEventCodec.isAvro(data) ? codec.decode(data) : json.deserialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+}
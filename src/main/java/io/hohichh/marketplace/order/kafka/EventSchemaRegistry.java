@@ -0,0 +1,72 @@
+package io.hohichh.marketplace.order.kafka;
+
+import org.apache.avro.Schema;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+//NOTE: local stand-in for a schema registry. Schema ids and files are listed in
+//avro/registry.properties on the classpath; the newest id of a record name is the writer schema.
+public class EventSchemaRegistry {
+    private static final String LOCATION = "avro/";
+
+    private final Map<Integer, Schema> schemasById = new HashMap<>();
+    private final Map<String, Integer> latestIdByName = new HashMap<>();
+
+    public static EventSchemaRegistry fromClasspath() {
+        ClassLoader classLoader = EventSchemaRegistry.class.getClassLoader();
+        Properties index = new Properties();
+        try (InputStream in = open(classLoader, "registry.properties")) {
+            index.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the schema registry index", e);
+        }
+
+        EventSchemaRegistry registry = new EventSchemaRegistry();
+        for (String id : index.stringPropertyNames()) {
+            String file = index.getProperty(id);
+            try (InputStream in = open(classLoader, file)) {
+                registry.register(Integer.parseInt(id), new Schema.Parser().parse(in));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read schema " + file, e);
+            }
+        }
+        return registry;
+    }
+
+    void register(int id, Schema schema) {
+        if (schemasById.putIfAbsent(id, schema) != null) {
+            throw new IllegalStateException("Schema id " + id + " is registered twice");
+        }
+        latestIdByName.merge(schema.getFullName(), id, Math::max);
+    }
+
+    public Schema schema(int id) {
+        Schema schema = schemasById.get(id);
+        if (schema == null) {
+            throw new SerializationException("Unknown schema id " + id);
+        }
+        return schema;
+    }
+
+    public int latestId(String fullName) {
+        Integer id = latestIdByName.get(fullName);
+        if (id == null) {
+            throw new SerializationException("No schema registered for " + fullName);
+        }
+        return id;
+    }
+
+    private static InputStream open(ClassLoader classLoader, String file) throws IOException {
+        InputStream in = classLoader.getResourceAsStream(LOCATION + file);
+        if (in == null) {
+            throw new IOException(LOCATION + file + " not found on the classpath");
+        }
+        return in;
+    }
+}
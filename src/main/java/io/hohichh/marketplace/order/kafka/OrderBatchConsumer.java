@@ -0,0 +1,72 @@
+package io.hohichh.marketplace.order.kafka;
+
+import io.hohichh.marketplace.order.dto.event.PaymentCreatedEvent;
+import io.hohichh.marketplace.order.model.order.Status;
+import io.hohichh.marketplace.order.service.OrderService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+//NOTE: batch mode of the payment listener (application.payments.listener.mode=batch).
+//Every poll is applied with a few set-based updates instead of one transaction per event.
+//A failed update is rethrown: the container redelivers the poll with backoff and moves
+//its records to the DLT once the attempts are used up (see PaymentListenerConfig).
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(value = "application.payments.listener.mode", havingValue = "batch")
+public class OrderBatchConsumer {
+    private final OrderService orderService;
+    private final PaymentEventDeduplicator deduplicator;
+
+    @KafkaListener(topics = PaymentDltReplayer.PAYMENT_TOPIC, groupId = "order-service-group",
+            containerFactory = "batchPaymentListenerFactory")
+    public void handlePaymentsCreated(List<PaymentCreatedEvent> events) {
+        log.info("Received {} payment events", events.size());
+
+        List<PaymentCreatedEvent> unprocessed = deduplicator.unprocessed(events);
+        Map<UUID, Status> statuses = collapse(unprocessed);
+        if (statuses.isEmpty()) {
+            return;
+        }
+
+        try {
+            orderService.updateOrderStatusesSystem(statuses);
+        } catch (RuntimeException e) {
+            log.error("Failed to update order statuses for {} orders, the poll will be redelivered",
+                    statuses.size(), e);
+            throw e;
+        }
+        deduplicator.markProcessed(unprocessed);
+    }
+
+    //final status per order in the order events arrived; like in the one-by-one mode
+    //a cancellation can't be undone by a later event of the same batch
+    static Map<UUID, Status> collapse(List<PaymentCreatedEvent> events) {
+        Map<UUID, Status> statuses = new LinkedHashMap<>();
+        for (PaymentCreatedEvent event : events) {
+            Status status = PaymentEvents.toOrderStatus(event.status());
+            if (status == null) {
+                log.info("Ignored payment status {} for order {}", event.status(), event.orderId());
+                continue;
+            }
+            UUID orderId;
+            try {
+                orderId = UUID.fromString(event.orderId());
+            } catch (IllegalArgumentException e) {
+                log.error("Skipped payment event with malformed orderId: {}", event.orderId());
+                continue;
+            }
+            statuses.merge(orderId, status,
+                    (previous, next) -> previous == Status.CANCELLED ? Status.CANCELLED : next);
+        }
+        return statuses;
+    }
+}
@@ -2,41 +2,69 @@ package io.hohichh.marketplace.order.kafka;
 
 
 import io.hohichh.marketplace.order.dto.event.PaymentCreatedEvent;
-import io.hohichh.marketplace.order.model.PaymentStatus;
+import io.hohichh.marketplace.order.exception.ActionNotPermittedException;
+import io.hohichh.marketplace.order.exception.ResourceNotFoundException;
 import io.hohichh.marketplace.order.model.order.Status;
 import io.hohichh.marketplace.order.service.OrderService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.UUID;
 
+//NOTE: a failed event is forwarded to payment-events-retry-0..2 (1s, 5s, 25s delay) and then
+//to payment-events-dlt, so the main topic never waits for it. Missing orders, forbidden
+//transitions and malformed ids can't be fixed by a retry: they are logged and skipped, so
+//only real failures reach the DLT. The dead letters are replayed through PaymentDltReplayer.
 @Component
 @RequiredArgsConstructor
 @Slf4j
+@ConditionalOnProperty(value = "application.payments.listener.mode", havingValue = "single", matchIfMissing = true)
 public class OrderConsumer {
     private final OrderService orderService;
+    private final PaymentEventDeduplicator deduplicator;
 
-    @KafkaListener(topics = "payment-events", groupId = "order-service-group")
+    @RetryableTopic(
+            attempts = "4",
+            backoff = @Backoff(delay = 1000, multiplier = 5, maxDelay = 60000),
+            topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE,
+            dltTopicSuffix = PaymentDltReplayer.DLT_SUFFIX)
+    @KafkaListener(topics = PaymentDltReplayer.PAYMENT_TOPIC, groupId = "order-service-group")
     public void handlePaymentCreated(PaymentCreatedEvent event) {
         log.info("Received OrderCreatedEvent for orderId: {}", event.orderId());
-        Status newOrderStatus;
-
-        if (event.status() == PaymentStatus.SUCCEED) {
-            newOrderStatus = Status.PROCESSING;
-        } else if (event.status() == PaymentStatus.DECLINED) {
-            newOrderStatus = Status.CANCELLED;
-            log.warn("Payment declined for order {}. Cancelling order.", event.orderId());
-        } else {
+        Status newOrderStatus = PaymentEvents.toOrderStatus(event.status());
+        if (newOrderStatus == null) {
             log.info("Ignored payment status {} for order {}", event.status(), event.orderId());
             return;
         }
+        if (newOrderStatus == Status.CANCELLED) {
+            log.warn("Payment declined for order {}. Cancelling order.", event.orderId());
+        }
+        if (deduplicator.isProcessed(event)) {
+            return;
+        }
 
         try {
             orderService.updateOrderStatusSystem(UUID.fromString(event.orderId()), newOrderStatus);
-        } catch (Exception e) {
-            log.error("Failed to update order status for orderId: {}", event.orderId(), e);
+        } catch (IllegalArgumentException | ResourceNotFoundException | ActionNotPermittedException e) {
+            log.error("Skipped payment event for orderId: {}", event.orderId(), e);
+            return;
         }
+        deduplicator.markProcessed(List.of(event));
+    }
+
+    @DltHandler
+    public void handleDeadLetter(PaymentCreatedEvent event,
+                                 @Header(name = KafkaHeaders.EXCEPTION_MESSAGE, required = false) String error) {
+        log.error("Payment event for orderId: {} moved to the dead-letter topic: {}", event.orderId(), error);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,130 @@
+package io.hohichh.marketplace.order.kafka;
+
+import io.hohichh.marketplace.order.dto.event.OrderCreatedEvent;
+import io.hohichh.marketplace.order.model.OrderOutboxEvent;
+import io.hohichh.marketplace.order.repository.OrderOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+//NOTE: rows are claimed for claim-timeout in a short transaction, so no locks
+//are held while waiting for kafka. claim-timeout must exceed send-timeout,
+//otherwise another instance may pick up rows whose sends are still pending.
+@Component
+@Slf4j
+public class OrderOutboxRelay {
+    private final OrderOutboxRepository outboxRepository;
+    private final OrderProducer orderProducer;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final int batchSize;
+    private final Duration sendTimeout;
+    private final Duration claimTimeout;
+
+    public OrderOutboxRelay(OrderOutboxRepository outboxRepository,
+                            OrderProducer orderProducer,
+                            TransactionTemplate transactionTemplate,
+                            Clock clock,
+                            @Value("${application.outbox.batch-size:100}") int batchSize,
+                            @Value("${application.outbox.send-timeout:10s}") Duration sendTimeout,
+                            @Value("${application.outbox.claim-timeout:1m}") Duration claimTimeout) {
+        this.outboxRepository = outboxRepository;
+        this.orderProducer = orderProducer;
+        this.transactionTemplate = transactionTemplate;
+        this.clock = clock;
+        this.batchSize = batchSize;
+        this.sendTimeout = sendTimeout;
+        this.claimTimeout = claimTimeout;
+    }
+
+    @Scheduled(fixedDelayString = "${application.outbox.poll-interval:500}")
+    public void relayPendingEvents() {
+        List<OrderOutboxEvent> batch = claimNextBatch();
+        if (batch.isEmpty()) {
+            return;
+        }
+        log.debug("Relaying {} outbox events", batch.size());
+
+        List<CompletableFuture<?>> sends = new ArrayList<>(batch.size());
+        for (OrderOutboxEvent outboxEvent : batch) {
+            sends.add(orderProducer.sendOrderCreatedEvent(new OrderCreatedEvent(
+                    outboxEvent.getOrderId().toString(),
+                    outboxEvent.getUserId().toString(),
+                    outboxEvent.getAmount()
+            )));
+        }
+        awaitAll(sends);
+
+        List<UUID> published = new ArrayList<>(batch.size());
+        List<UUID> failed = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            CompletableFuture<?> send = sends.get(i);
+            if (!send.isDone()) {
+                //still in flight, the claim expires and the row is retried by a later run
+                log.warn("Outbox event for order {} not acknowledged within {}", batch.get(i).getOrderId(), sendTimeout);
+            } else if (send.isCompletedExceptionally()) {
+                logFailure(send, batch.get(i));
+                failed.add(batch.get(i).getId());
+            } else {
+                published.add(batch.get(i).getId());
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!published.isEmpty()) {
+                outboxRepository.deleteAllByIdInBatch(published);
+            }
+            if (!failed.isEmpty()) {
+                outboxRepository.releaseClaims(failed);
+            }
+        });
+        log.info("Relayed {} of {} outbox events", published.size(), batch.size());
+    }
+
+    private List<OrderOutboxEvent> claimNextBatch() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now(clock);
+            List<OrderOutboxEvent> batch = outboxRepository.lockNextBatch(now, batchSize);
+            LocalDateTime claimedUntil = now.plus(claimTimeout);
+            batch.forEach(outboxEvent -> outboxEvent.setClaimedUntil(claimedUntil));
+            return batch;
+        });
+    }
+
+    private void awaitAll(List<CompletableFuture<?>> sends) {
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            //per-send outcome is inspected by the caller
+        }
+    }
+
+    private void logFailure(CompletableFuture<?> send, OrderOutboxEvent outboxEvent) {
+        try {
+            send.join();
+        } catch (RuntimeException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof ProducerOverloadedException) {
+                log.warn("Producer overloaded, outbox event for order {} stays for the next run", outboxEvent.getOrderId());
+            } else {
+                log.error("Failed to relay outbox event for order {}, will retry", outboxEvent.getOrderId(), cause);
+            }
+        }
+    }
+}
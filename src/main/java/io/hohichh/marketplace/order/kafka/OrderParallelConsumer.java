@@ -0,0 +1,223 @@
+package io.hohichh.marketplace.order.kafka;
+
+import io.hohichh.marketplace.order.dto.event.PaymentCreatedEvent;
+import io.hohichh.marketplace.order.exception.ActionNotPermittedException;
+import io.hohichh.marketplace.order.exception.ResourceNotFoundException;
+import io.hohichh.marketplace.order.model.order.Status;
+import io.hohichh.marketplace.order.service.OrderService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Queue;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+//NOTE: parallel mode of the payment listener (application.payments.listener.mode=parallel).
+//Records of a poll are striped by orderId over virtual threads: a stripe handles its records
+//in the order they arrived, different stripes run concurrently. The poll is acknowledged once
+//every stripe is done; if a stripe fails, offsets are committed only up to the lowest failed
+//record and the rest of the poll is redelivered. A record failing retry-attempts redeliveries
+//in a row is published to the DLT and skipped, so it cannot hold its partition forever.
+@Component
+@Slf4j
+@ConditionalOnProperty(value = "application.payments.listener.mode", havingValue = "parallel")
+public class OrderParallelConsumer implements ConsumerSeekAware, DisposableBean {
+    private final OrderService orderService;
+    private final PaymentEventDeduplicator deduplicator;
+    private final ConsumerRecordRecoverer deadLetterRecoverer;
+    private final int stripes;
+    private final int retryAttempts;
+    private final Duration retryBackoff;
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    //failed attempts per record, kept until the record goes through or lands in the DLT
+    private final Map<RecordPosition, Integer> failedAttempts = new ConcurrentHashMap<>();
+
+    public OrderParallelConsumer(OrderService orderService,
+                                 PaymentEventDeduplicator deduplicator,
+                                 ConsumerRecordRecoverer deadLetterRecoverer,
+                                 @Value("${application.payments.listener.stripes:8}") int stripes,
+                                 @Value("${application.payments.listener.retry-attempts:3}") int retryAttempts,
+                                 @Value("${application.payments.listener.retry-backoff:1s}") Duration retryBackoff) {
+        this.orderService = orderService;
+        this.deduplicator = deduplicator;
+        this.deadLetterRecoverer = deadLetterRecoverer;
+        this.stripes = stripes;
+        this.retryAttempts = retryAttempts;
+        this.retryBackoff = retryBackoff;
+    }
+
+    @KafkaListener(topics = PaymentDltReplayer.PAYMENT_TOPIC, groupId = "order-service-group",
+            containerFactory = "parallelPaymentListenerFactory")
+    public void handlePaymentsCreated(List<ConsumerRecord<String, PaymentCreatedEvent>> records,
+                                      Acknowledgment acknowledgment) {
+        log.info("Received {} payment events", records.size());
+
+        Set<PaymentCreatedEvent> unprocessed = Collections.newSetFromMap(new IdentityHashMap<>());
+        unprocessed.addAll(deduplicator.unprocessed(records.stream().map(ConsumerRecord::value).toList()));
+        Queue<PaymentCreatedEvent> applied = new ConcurrentLinkedQueue<>();
+
+        List<Future<Integer>> results = new ArrayList<>(stripes);
+        for (List<Integer> stripe : stripe(records)) {
+            if (!stripe.isEmpty()) {
+                results.add(workers.submit(() -> processStripe(records, stripe, unprocessed, applied)));
+            }
+        }
+
+        int firstFailed = -1;
+        for (Future<Integer> result : results) {
+            int failed = awaitStripe(result);
+            if (failed >= 0 && (firstFailed < 0 || failed < firstFailed)) {
+                firstFailed = failed;
+            }
+        }
+
+        if (!applied.isEmpty()) {
+            markProcessed(List.copyOf(applied));
+        }
+        if (firstFailed < 0) {
+            acknowledgment.acknowledge();
+        } else {
+            log.warn("Payment event at offset {} of partition {} failed, redelivering from it",
+                    records.get(firstFailed).offset(), records.get(firstFailed).partition());
+            acknowledgment.nack(firstFailed, retryBackoff);
+        }
+    }
+
+    //another instance continues the revoked partitions and counts attempts from scratch
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        failedAttempts.keySet().removeIf(position -> partitions.contains(position.partition()));
+    }
+
+    @Override
+    public void destroy() {
+        workers.close();
+    }
+
+    //indexes of the records per stripe, each list keeps the poll order
+    List<List<Integer>> stripe(List<ConsumerRecord<String, PaymentCreatedEvent>> records) {
+        List<List<Integer>> result = new ArrayList<>(stripes);
+        for (int i = 0; i < stripes; i++) {
+            result.add(new ArrayList<>());
+        }
+        for (int i = 0; i < records.size(); i++) {
+            result.get(Math.floorMod(stripeKey(records.get(i)).hashCode(), stripes)).add(i);
+        }
+        return result;
+    }
+
+    private static String stripeKey(ConsumerRecord<String, PaymentCreatedEvent> record) {
+        if (record.value() != null && record.value().orderId() != null) {
+            return record.value().orderId();
+        }
+        return String.valueOf(record.key());
+    }
+
+    //index of the record the stripe stopped at, -1 when all of them went through;
+    //later records of the stripe are left for the redelivery so an order's events stay ordered
+    private int processStripe(List<ConsumerRecord<String, PaymentCreatedEvent>> records, List<Integer> stripe,
+                              Set<PaymentCreatedEvent> unprocessed, Queue<PaymentCreatedEvent> applied) {
+        for (int index : stripe) {
+            ConsumerRecord<String, PaymentCreatedEvent> record = records.get(index);
+            if (unprocessed.contains(record.value()) && !process(record, applied)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private boolean process(ConsumerRecord<String, PaymentCreatedEvent> record, Queue<PaymentCreatedEvent> applied) {
+        PaymentCreatedEvent event = record.value();
+        if (event == null) {
+            log.error("Skipped empty payment event");
+            return true;
+        }
+        Status status = PaymentEvents.toOrderStatus(event.status());
+        if (status == null) {
+            log.info("Ignored payment status {} for order {}", event.status(), event.orderId());
+            return true;
+        }
+
+        try {
+            orderService.updateOrderStatusSystem(UUID.fromString(event.orderId()), status);
+            applied.add(event);
+        } catch (IllegalArgumentException | ResourceNotFoundException | ActionNotPermittedException e) {
+            log.error("Skipped payment event for orderId: {}", event.orderId(), e);
+        } catch (Exception e) {
+            return retryOrDeadLetter(record, e);
+        }
+        failedAttempts.remove(RecordPosition.of(record));
+        return true;
+    }
+
+    private boolean retryOrDeadLetter(ConsumerRecord<String, PaymentCreatedEvent> record, Exception error) {
+        RecordPosition position = RecordPosition.of(record);
+        int attempts = failedAttempts.merge(position, 1, Integer::sum);
+        if (attempts <= retryAttempts) {
+            log.error("Failed to update order status for orderId: {}, attempt {} of {}",
+                    record.value().orderId(), attempts, retryAttempts + 1, error);
+            return false;
+        }
+
+        try {
+            deadLetterRecoverer.accept(record, error);
+        } catch (Exception e) {
+            //the record is redelivered and the publish retried with it
+            log.error("Failed to publish payment event for orderId: {} to the DLT", record.value().orderId(), e);
+            return false;
+        }
+        failedAttempts.remove(position);
+        log.error("Payment event for orderId: {} failed {} attempts, moved to the DLT",
+                record.value().orderId(), attempts, error);
+        return true;
+    }
+
+    //a lost mark only lets the events through once more, the poll is not redelivered for it
+    private void markProcessed(List<PaymentCreatedEvent> events) {
+        try {
+            deduplicator.markProcessed(events);
+        } catch (Exception e) {
+            log.error("Failed to record {} applied payment events", events.size(), e);
+        }
+    }
+
+    private record RecordPosition(TopicPartition partition, long offset) {
+        static RecordPosition of(ConsumerRecord<?, ?> record) {
+            return new RecordPosition(new TopicPartition(record.topic(), record.partition()), record.offset());
+        }
+    }
+
+    private static int awaitStripe(Future<Integer> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        } catch (ExecutionException e) {
+            log.error("Payment stripe failed", e.getCause());
+            return 0;
+        }
+    }
+}
@@ -1,19 +1,110 @@
 package io.hohichh.marketplace.order.kafka;
 
+import io.hohichh.marketplace.order.config.KafkaProducerProperties;
 import io.hohichh.marketplace.order.dto.event.OrderCreatedEvent;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+//NOTE: every send holds an in-flight slot until the broker answers, so a slow broker makes
+//callers fail fast (see KafkaProducerProperties) instead of silently filling the producer buffer.
+//Latency and outcome are recorded per topic as kafka.producer.send.
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class OrderProducer {
+    static final String ORDER_CREATED_TOPIC = "order-created-events";
+
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final MeterRegistry meterRegistry;
+    private final KafkaProducerProperties properties;
+    private final Semaphore inFlight;
+
+    public OrderProducer(KafkaTemplate<String, Object> kafkaTemplate,
+                         MeterRegistry meterRegistry,
+                         KafkaProducerProperties properties) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.meterRegistry = meterRegistry;
+        this.properties = properties;
+        this.inFlight = new Semaphore(properties.maxInFlight());
+
+        Gauge.builder("kafka.producer.in.flight", inFlight,
+                        permits -> properties.maxInFlight() - permits.availablePermits())
+                .register(meterRegistry);
+    }
 
-    public void sendOrderCreatedEvent(OrderCreatedEvent event) {
+    public CompletableFuture<SendResult<String, Object>> sendOrderCreatedEvent(OrderCreatedEvent event) {
         log.info("Sending payment created event for Order: {}", event.orderId());
-        kafkaTemplate.send("order-created-events", event.orderId(), event);
+        return send(ORDER_CREATED_TOPIC, event.orderId(), event);
+    }
+
+    public void flush() {
+        kafkaTemplate.flush();
+    }
+
+    private CompletableFuture<SendResult<String, Object>> send(String topic, String key, Object value) {
+        if (!acquireSlot()) {
+            rejectedSends(topic).increment();
+            return CompletableFuture.failedFuture(new ProducerOverloadedException(topic, properties.maxInFlight()));
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<SendResult<String, Object>> send;
+        try {
+            send = kafkaTemplate.send(topic, key, value);
+        } catch (RuntimeException e) {
+            complete(sample, topic, e);
+            return CompletableFuture.failedFuture(e);
+        }
+        return send.whenComplete((result, error) -> {
+            complete(sample, topic, error);
+            if (error == null) {
+                log.debug("Sent event with key {} to {}-{}@{}", key, topic,
+                        result.getRecordMetadata().partition(), result.getRecordMetadata().offset());
+            }
+        });
+    }
+
+    private boolean acquireSlot() {
+        if (properties.overflow() == KafkaProducerProperties.Overflow.SHED) {
+            return inFlight.tryAcquire();
+        }
+        try {
+            return inFlight.tryAcquire(properties.blockTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void complete(Timer.Sample sample, String topic, Throwable error) {
+        inFlight.release();
+        sample.stop(Timer.builder("kafka.producer.send")
+                .tag("topic", topic)
+                .tag("outcome", error == null ? "success" : "error")
+                .tag("exception", error == null ? "none" : rootCause(error).getClass().getSimpleName())
+                .register(meterRegistry));
+    }
+
+    private Counter rejectedSends(String topic) {
+        return Counter.builder("kafka.producer.send.rejected")
+                .tag("topic", topic)
+                .register(meterRegistry);
+    }
+
+    private static Throwable rootCause(Throwable error) {
+        Throwable cause = error;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause;
     }
 }
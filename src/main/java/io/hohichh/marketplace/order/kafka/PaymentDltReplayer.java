@@ -0,0 +1,127 @@
+package io.hohichh.marketplace.order.kafka;
+
+import io.hohichh.marketplace.order.exception.ActionNotPermittedException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//NOTE: moves dead-lettered payment events back to the main topic. Progress is kept as the
+//committed offsets of its own consumer group, so a replay continues where the last one stopped.
+//Only records that were in the DLT when the replay started are taken: an event failing again
+//lands behind that mark and waits for the next replay.
+@Component
+@Slf4j
+public class PaymentDltReplayer {
+    public static final String PAYMENT_TOPIC = "payment-events";
+    public static final String DLT_SUFFIX = "-dlt";
+    public static final String DLT_TOPIC = PAYMENT_TOPIC + DLT_SUFFIX;
+    static final String REPLAY_GROUP = "order-service-dlt-replay";
+
+    private final ConsumerFactory<Object, Object> consumerFactory;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final Duration pollTimeout;
+    private final Duration sendTimeout;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public PaymentDltReplayer(ConsumerFactory<Object, Object> consumerFactory,
+                              KafkaTemplate<String, Object> kafkaTemplate,
+                              @Value("${application.payments.dlt.replay-poll-timeout:1s}") Duration pollTimeout,
+                              @Value("${application.payments.dlt.replay-send-timeout:10s}") Duration sendTimeout) {
+        this.consumerFactory = consumerFactory;
+        this.kafkaTemplate = kafkaTemplate;
+        this.pollTimeout = pollTimeout;
+        this.sendTimeout = sendTimeout;
+    }
+
+    public long replay(int limit) {
+        if (!running.compareAndSet(false, true)) {
+            throw new ActionNotPermittedException("Dead letter replay is already running");
+        }
+        try (Consumer<Object, Object> consumer = createConsumer(limit)) {
+            return replay(consumer, limit);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private long replay(Consumer<Object, Object> consumer, int limit) {
+        List<TopicPartition> partitions = consumer.partitionsFor(DLT_TOPIC).stream()
+                .map(info -> new TopicPartition(info.topic(), info.partition()))
+                .toList();
+        consumer.assign(partitions);
+        Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+
+        long replayed = 0;
+        while (replayed < limit && !reachedEnd(consumer, endOffsets)) {
+            List<CompletableFuture<?>> sends = new ArrayList<>();
+            Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+
+            for (ConsumerRecord<Object, Object> record : consumer.poll(pollTimeout)) {
+                TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+                if (replayed == limit || record.offset() >= endOffsets.get(partition)) {
+                    continue;
+                }
+                if (record.value() == null) {
+                    log.error("Dropped empty dead letter at offset {} of partition {}", record.offset(), partition);
+                } else {
+                    sends.add(kafkaTemplate.send(PAYMENT_TOPIC, (String) record.key(), record.value()));
+                    replayed++;
+                }
+                offsets.put(partition, new OffsetAndMetadata(record.offset() + 1));
+            }
+
+            awaitSends(sends);
+            if (!offsets.isEmpty()) {
+                consumer.commitSync(offsets);
+            }
+        }
+
+        log.info("Replayed {} dead-lettered payment events", replayed);
+        return replayed;
+    }
+
+    private Consumer<Object, Object> createConsumer(int limit) {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(Math.min(limit, 500)));
+        return consumerFactory.createConsumer(REPLAY_GROUP, null, null, overrides);
+    }
+
+    private static boolean reachedEnd(Consumer<Object, Object> consumer, Map<TopicPartition, Long> endOffsets) {
+        return endOffsets.entrySet().stream()
+                .allMatch(end -> consumer.position(end.getKey()) >= end.getValue());
+    }
+
+    //offsets are committed only after the broker took the copies, a failed send stops the replay
+    private void awaitSends(List<CompletableFuture<?>> sends) {
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Dead letter replay interrupted", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Failed to send dead letters back to " + PAYMENT_TOPIC, e);
+        }
+    }
+}
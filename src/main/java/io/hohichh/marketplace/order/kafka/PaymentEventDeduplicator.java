@@ -0,0 +1,124 @@
+package io.hohichh.marketplace.order.kafka;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.hohichh.marketplace.order.dto.event.PaymentCreatedEvent;
+import io.hohichh.marketplace.order.repository.ProcessedPaymentEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+//NOTE: filters out payment events whose paymentId was already applied, so a redelivered poll
+//doesn't read, write and evict its orders again. Recent ids are answered from memory, the rest
+//with one lookup per poll in processed_payment_events. Ids are recorded after the order update,
+//so a crash in between still lets the event through once more. Only events that change an order
+//are tracked, a pending notification doesn't hide the final one of the same payment.
+@Component
+@Slf4j
+public class PaymentEventDeduplicator {
+    private final ProcessedPaymentEventRepository processedRepository;
+    private final Clock clock;
+    private final Duration retention;
+    private final int cleanupChunkSize;
+    private final Cache<String, Boolean> recent;
+
+    public PaymentEventDeduplicator(ProcessedPaymentEventRepository processedRepository,
+                                    Clock clock,
+                                    @Value("${application.payments.dedupe.retention:7d}") Duration retention,
+                                    @Value("${application.payments.dedupe.memory-max-size:100000}") long memoryMaxSize,
+                                    @Value("${application.payments.dedupe.cleanup-chunk-size:1000}") int cleanupChunkSize) {
+        this.processedRepository = processedRepository;
+        this.clock = clock;
+        this.retention = retention;
+        this.cleanupChunkSize = cleanupChunkSize;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(memoryMaxSize)
+                .expireAfterWrite(retention)
+                .build();
+    }
+
+    //events not applied yet, in their original order; a paymentId repeated within the list is kept once
+    public List<PaymentCreatedEvent> unprocessed(List<PaymentCreatedEvent> events) {
+        Set<String> unknown = new LinkedHashSet<>();
+        for (PaymentCreatedEvent event : events) {
+            if (isTracked(event) && recent.getIfPresent(event.paymentId()) == null) {
+                unknown.add(event.paymentId());
+            }
+        }
+
+        Set<String> processed = unknown.isEmpty() ? Set.of() : processedRepository.findProcessedIds(unknown);
+        processed.forEach(paymentId -> recent.put(paymentId, Boolean.TRUE));
+
+        Set<String> taken = new HashSet<>();
+        List<PaymentCreatedEvent> result = new ArrayList<>(events.size());
+        for (PaymentCreatedEvent event : events) {
+            if (!isTracked(event)) {
+                result.add(event);
+            } else if (unknown.contains(event.paymentId()) && !processed.contains(event.paymentId())
+                    && taken.add(event.paymentId())) {
+                result.add(event);
+            }
+        }
+        if (result.size() < events.size()) {
+            log.info("Skipped {} already applied payment events", events.size() - result.size());
+        }
+        return result;
+    }
+
+    public boolean isProcessed(PaymentCreatedEvent event) {
+        return unprocessed(List.of(event)).isEmpty();
+    }
+
+    public void markProcessed(List<PaymentCreatedEvent> events) {
+        List<String> paymentIds = new ArrayList<>(events.size());
+        List<UUID> orderIds = new ArrayList<>(events.size());
+        for (PaymentCreatedEvent event : events) {
+            if (!isTracked(event)) {
+                continue;
+            }
+            try {
+                orderIds.add(UUID.fromString(event.orderId()));
+                paymentIds.add(event.paymentId());
+            } catch (IllegalArgumentException e) {
+                log.debug("Not recording payment {} with malformed orderId", event.paymentId());
+            }
+        }
+        if (paymentIds.isEmpty()) {
+            return;
+        }
+
+        processedRepository.insertIgnoringDuplicates(paymentIds.toArray(String[]::new),
+                orderIds.toArray(UUID[]::new), LocalDateTime.now(clock));
+        paymentIds.forEach(paymentId -> recent.put(paymentId, Boolean.TRUE));
+    }
+
+    private static boolean isTracked(PaymentCreatedEvent event) {
+        return event != null && event.paymentId() != null && PaymentEvents.toOrderStatus(event.status()) != null;
+    }
+
+    @Scheduled(fixedDelayString = "${application.payments.dedupe.cleanup-interval:1h}")
+    public void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now(clock).minus(retention);
+        long removed = 0;
+        int chunk;
+        do {
+            chunk = processedRepository.deleteProcessedBefore(cutoff, cleanupChunkSize);
+            removed += chunk;
+        } while (chunk == cleanupChunkSize);
+
+        if (removed > 0) {
+            log.info("Removed {} processed payment ids older than {}", removed, cutoff);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package io.hohichh.marketplace.order.kafka;
+
+import io.hohichh.marketplace.order.model.PaymentStatus;
+import io.hohichh.marketplace.order.model.order.Status;
+
+final class PaymentEvents {
+
+    private PaymentEvents() {
+    }
+
+    //order status a payment status leads to, null when the payment status doesn't affect the order
+    static Status toOrderStatus(PaymentStatus paymentStatus) {
+        if (paymentStatus == PaymentStatus.SUCCEED) {
+            return Status.PROCESSING;
+        }
+        if (paymentStatus == PaymentStatus.DECLINED) {
+            return Status.CANCELLED;
+        }
+        return null;
+    }
+}
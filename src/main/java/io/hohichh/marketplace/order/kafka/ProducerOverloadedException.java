@@ -0,0 +1,7 @@
+package io.hohichh.marketplace.order.kafka;
+
+public class ProducerOverloadedException extends RuntimeException {
+    public ProducerOverloadedException(String topic, int maxInFlight) {
+        super("Send to " + topic + " rejected: " + maxInFlight + " sends already in flight");
+    }
+}
@@ -1,8 +1,10 @@
 package io.hohichh.marketplace.order.mapper;
 
 import io.hohichh.marketplace.order.dto.OrderDto;
+import io.hohichh.marketplace.order.dto.OrderExportDto;
 import io.hohichh.marketplace.order.dto.OrderWithItemsDto;
 import io.hohichh.marketplace.order.dto.UserDto;
+import io.hohichh.marketplace.order.model.OrderItem;
 import io.hohichh.marketplace.order.model.order.Order;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -17,9 +19,13 @@ public interface OrderMapper {
     @Mapping(target = "creationDate", source = "order.creationDate")
     @Mapping(target = "orderItems", source = "order.orderItems")
     @Mapping(target = "userDto", source = "userDto")
+    @Mapping(target = "withUserDto", ignore = true)
     OrderWithItemsDto toDtoWithItems(Order order, UserDto userDto);
 
     List<OrderDto> toDtoList(List<Order> orders);
 
     OrderDto toDto(Order order);
+
+    @Mapping(target = "orderItems", source = "orderItems")
+    OrderExportDto toExportDto(Order order, List<OrderItem> orderItems);
 }
@@ -0,0 +1,41 @@
+package io.hohichh.marketplace.order.model;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+//NOTE: rows are written in the same transaction as the order and
+//removed by the outbox relay once the event is acknowledged by kafka.
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "order_outbox")
+public class OrderOutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Setter(AccessLevel.NONE)
+    @Column(name = "id", nullable = false)
+    private UUID id;
+
+    @Column(name = "order_id", nullable = false)
+    private UUID orderId;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+}
@@ -0,0 +1,28 @@
+package io.hohichh.marketplace.order.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+//NOTE: payment ids already applied to their orders, kept for
+//application.payments.dedupe.retention and then removed by PaymentEventDeduplicator.
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "processed_payment_events")
+public class ProcessedPaymentEvent {
+    @Id
+    @Column(name = "payment_id", nullable = false)
+    private String paymentId;
+
+    @Column(name = "order_id", nullable = false)
+    private UUID orderId;
+
+    @Column(name = "processed_at", nullable = false)
+    private LocalDateTime processedAt;
+}
@@ -8,6 +8,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
@@ -35,6 +36,13 @@ public class Order {
     @Column(name="creation_date", nullable = false)
     private LocalDate creationDate;
 
+    @Column(name = "total_amount", precision = 19, scale = 2)
+    private BigDecimal totalAmount;
+
+    //total number of units over all items
+    @Column(name = "item_count")
+    private Integer itemCount;
+
     @OneToMany(
             mappedBy = "order",
             cascade = CascadeType.ALL,
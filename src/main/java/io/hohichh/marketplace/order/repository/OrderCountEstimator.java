@@ -0,0 +1,7 @@
+package io.hohichh.marketplace.order.repository;
+
+import io.hohichh.marketplace.order.dto.OrderSearchFilter;
+
+public interface OrderCountEstimator {
+    long estimateCount(OrderSearchFilter filter);
+}
@@ -0,0 +1,66 @@
+package io.hohichh.marketplace.order.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.hohichh.marketplace.order.dto.OrderSearchFilter;
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+//NOTE: asks the planner how many rows the search would return instead of counting them.
+//The estimate comes from table statistics (ANALYZE), so it may be off after bulk changes.
+//The predicates mirror OrderSpecifications.matching.
+@AllArgsConstructor
+public class OrderCountEstimatorImpl implements OrderCountEstimator {
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public long estimateCount(OrderSearchFilter filter) {
+        List<String> predicates = new ArrayList<>();
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        if (isPresent(filter.ids())) {
+            predicates.add("id IN (:ids)");
+            params.addValue("ids", filter.ids());
+        }
+        if (isPresent(filter.statuses())) {
+            predicates.add("status IN (:statuses)");
+            params.addValue("statuses", filter.statuses().stream().map(Enum::name).toList());
+        }
+        if (isPresent(filter.userIds())) {
+            predicates.add("user_id IN (:userIds)");
+            params.addValue("userIds", filter.userIds());
+        }
+        if (filter.createdFrom() != null) {
+            predicates.add("creation_date >= :createdFrom");
+            params.addValue("createdFrom", filter.createdFrom());
+        }
+        if (filter.createdTo() != null) {
+            predicates.add("creation_date <= :createdTo");
+            params.addValue("createdTo", filter.createdTo());
+        }
+
+        String sql = "EXPLAIN (FORMAT JSON) SELECT 1 FROM orders"
+                + (predicates.isEmpty() ? "" : " WHERE " + String.join(" AND ", predicates));
+        String plan = jdbcTemplate.queryForObject(sql, params, String.class);
+        return planRows(plan);
+    }
+
+    private long planRows(String plan) {
+        try {
+            JsonNode root = objectMapper.readTree(plan);
+            return root.path(0).path("Plan").path("Plan Rows").asLong();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unexpected EXPLAIN output", e);
+        }
+    }
+
+    private static boolean isPresent(Collection<?> values) {
+        return values != null && !values.isEmpty();
+    }
+}
@@ -3,7 +3,10 @@ package io.hohichh.marketplace.order.repository;
 import io.hohichh.marketplace.order.model.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 public interface OrderItemRepository extends JpaRepository<OrderItem, UUID> {
+    List<OrderItem> findByOrderIdIn(Collection<UUID> orderIds);
 }
@@ -0,0 +1,29 @@
+package io.hohichh.marketplace.order.repository;
+
+import io.hohichh.marketplace.order.model.OrderOutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface OrderOutboxRepository extends JpaRepository<OrderOutboxEvent, UUID> {
+
+    //rows locked or claimed by another relay instance are skipped instead of waited for
+    @Query(value = """
+            SELECT * FROM order_outbox
+            WHERE claimed_until IS NULL OR claimed_until < :now
+            ORDER BY created_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<OrderOutboxEvent> lockNextBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE OrderOutboxEvent e SET e.claimedUntil = null WHERE e.id IN :ids")
+    int releaseClaims(@Param("ids") Collection<UUID> ids);
+}
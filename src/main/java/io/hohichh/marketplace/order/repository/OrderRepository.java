@@ -1,30 +1,77 @@
 package io.hohichh.marketplace.order.repository;
 
 import io.hohichh.marketplace.order.model.order.Order;
-import io.hohichh.marketplace.order.model.order.Status;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
-public interface OrderRepository extends JpaRepository<Order, UUID> {
-
-//мб понадобиться
-//    @Query("SELECT o FROM Order o WHERE " +
-//            "(:#{#ids == null} = true OR o.id IN :ids) AND " +
-//            "(:#{#statuses == null} = true OR o.status IN :statuses)")
-    @Query("SELECT o FROM Order o WHERE " +
-            "(:ids IS NULL OR o.id IN :ids) AND " +
-            "(:statuses IS NULL OR o.status IN :statuses)")
-    Page<Order> findAllByFilter(
-            @Param("ids") List<UUID> ids,
-            @Param("statuses") List<Status> statuses,
-            Pageable pageable
-    );
+public interface OrderRepository extends JpaRepository<Order, UUID>, JpaSpecificationExecutor<Order>,
+        OrderCountEstimator {
+
+    //NOTE: filtered search and scroll are built from OrderSpecifications,
+    //so the generated SQL only carries the criteria that were actually given
 
     List<Order> findOrdersByUserId(UUID userId);
+
+    //NOTE: order history of a user, seeks on idx_orders_user_id_creation_date_id
+    @Query("SELECT o FROM Order o WHERE o.userId = :userId " +
+            "ORDER BY o.creationDate DESC, o.id DESC")
+    List<Order> findFirstByUserId(@Param("userId") UUID userId, Limit limit);
+
+    @Query("SELECT o FROM Order o WHERE o.userId = :userId AND " +
+            "(o.creationDate, o.id) < (:creationDate, :id) " +
+            "ORDER BY o.creationDate DESC, o.id DESC")
+    List<Order> findNextByUserId(
+            @Param("userId") UUID userId,
+            @Param("creationDate") LocalDate creationDate,
+            @Param("id") UUID id,
+            Limit limit
+    );
+
+    //NOTE: ownership checks only need the owner, evicted together with the "orders" cache.
+    //sync fills go through the loader path, which neither stores unknown ids nor publishes invalidations
+    @Cacheable(value = "orderOwners", key = "#id", sync = true)
+    @Query("SELECT o.userId FROM Order o WHERE o.id = :id")
+    Optional<UUID> findUserIdById(@Param("id") UUID id);
+
+    //NOTE: set-based status change for the batch payment listener.
+    //A cancelled order only accepts CANCELLED again, orders already in the target status are skipped.
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE orders SET status = :status
+            WHERE id = ANY(:ids)
+              AND status <> :status
+              AND (status <> 'CANCELLED' OR :status = 'CANCELLED')
+            """, nativeQuery = true)
+    int updateStatuses(@Param("ids") UUID[] ids, @Param("status") String status);
+
+    //fills totals of up to chunkSize orders created before the totals columns existed
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE orders o
+            SET total_amount = totals.total_amount, item_count = totals.item_count
+            FROM (
+                SELECT pending.id,
+                       COALESCE(SUM(i.price_per_unit * i.quantity), 0) AS total_amount,
+                       COALESCE(SUM(i.quantity), 0) AS item_count
+                FROM (SELECT id FROM orders WHERE total_amount IS NULL
+                      LIMIT :chunkSize FOR UPDATE SKIP LOCKED) pending
+                LEFT JOIN order_items i ON i.order_id = pending.id
+                GROUP BY pending.id
+            ) totals
+            WHERE o.id = totals.id
+            """, nativeQuery = true)
+    int backfillTotals(@Param("chunkSize") int chunkSize);
 }
@@ -0,0 +1,60 @@
+package io.hohichh.marketplace.order.repository;
+
+import io.hohichh.marketplace.order.dto.OrderSearchFilter;
+import io.hohichh.marketplace.order.model.order.Order;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+//NOTE: only the criteria actually present end up in the SQL, so every filter
+//combination gets its own plan and can use the matching index:
+//  ids -> primary key, statuses -> idx_orders_status_creation_date_id,
+//  userIds -> idx_orders_user_id_creation_date_id, date range -> idx_orders_creation_date_id
+public final class OrderSpecifications {
+
+    private OrderSpecifications() {
+    }
+
+    public static Specification<Order> matching(OrderSearchFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (isPresent(filter.ids())) {
+                predicates.add(root.get("id").in(filter.ids()));
+            }
+            if (isPresent(filter.statuses())) {
+                predicates.add(root.get("status").in(filter.statuses()));
+            }
+            if (isPresent(filter.userIds())) {
+                predicates.add(root.get("userId").in(filter.userIds()));
+            }
+            if (filter.createdFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("creationDate"), filter.createdFrom()));
+            }
+            if (filter.createdTo() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("creationDate"), filter.createdTo()));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    //keyset position for pages sorted by creation date and id, both descending.
+    //The redundant creation_date bound gives the planner an index range to scan.
+    public static Specification<Order> before(LocalDate creationDate, UUID id) {
+        return (root, query, cb) -> cb.and(
+                cb.lessThanOrEqualTo(root.get("creationDate"), creationDate),
+                cb.or(
+                        cb.lessThan(root.get("creationDate"), creationDate),
+                        cb.lessThan(root.get("id"), id)
+                )
+        );
+    }
+
+    private static boolean isPresent(Collection<?> values) {
+        return values != null && !values.isEmpty();
+    }
+}
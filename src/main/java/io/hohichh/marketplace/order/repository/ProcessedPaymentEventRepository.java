@@ -0,0 +1,43 @@
+package io.hohichh.marketplace.order.repository;
+
+import io.hohichh.marketplace.order.model.ProcessedPaymentEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+
+public interface ProcessedPaymentEventRepository extends JpaRepository<ProcessedPaymentEvent, String> {
+
+    @Query("SELECT p.paymentId FROM ProcessedPaymentEvent p WHERE p.paymentId IN :paymentIds")
+    Set<String> findProcessedIds(@Param("paymentIds") Collection<String> paymentIds);
+
+    //one statement for the whole batch, ids recorded by a concurrent consumer are left as they are
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO processed_payment_events (payment_id, order_id, processed_at)
+            SELECT t.payment_id, t.order_id, :processedAt
+            FROM unnest(CAST(:paymentIds AS varchar[]), CAST(:orderIds AS uuid[])) AS t(payment_id, order_id)
+            ON CONFLICT (payment_id) DO NOTHING
+            """, nativeQuery = true)
+    int insertIgnoringDuplicates(@Param("paymentIds") String[] paymentIds,
+                                 @Param("orderIds") UUID[] orderIds,
+                                 @Param("processedAt") LocalDateTime processedAt);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            DELETE FROM processed_payment_events
+            WHERE payment_id IN (
+                SELECT payment_id FROM processed_payment_events
+                WHERE processed_at < :cutoff
+                LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteProcessedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
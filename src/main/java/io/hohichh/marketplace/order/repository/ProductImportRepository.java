@@ -0,0 +1,60 @@
+package io.hohichh.marketplace.order.repository;
+
+import io.hohichh.marketplace.order.dto.product.ProductImportFormat;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+public interface ProductImportRepository {
+
+    //all or nothing: any invalid line rolls the whole import back
+    @Transactional
+    ImportResult importProducts(ProductImportFormat format, InputStream input);
+
+    record ImportResult(long received, long inserted, UpdatedIds updatedIds) {
+    }
+
+    //NOTE: ids of the changed products, needed after the commit to evict them.
+    //Kept as raw bits: 16 bytes per product instead of a UUID object and a list slot,
+    //so a million changed products take ~16 MB.
+    final class UpdatedIds {
+        private long[] bits = new long[256];
+        private int size;
+
+        public static UpdatedIds of(Collection<UUID> ids) {
+            UpdatedIds updatedIds = new UpdatedIds();
+            ids.forEach(updatedIds::add);
+            return updatedIds;
+        }
+
+        public void add(UUID id) {
+            if (2 * size == bits.length) {
+                bits = Arrays.copyOf(bits, bits.length * 2);
+            }
+            bits[2 * size] = id.getMostSignificantBits();
+            bits[2 * size + 1] = id.getLeastSignificantBits();
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void forEachBatch(int batchSize, Consumer<List<UUID>> action) {
+            for (int from = 0; from < size; from += batchSize) {
+                int to = Math.min(from + batchSize, size);
+                List<UUID> batch = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) {
+                    batch.add(new UUID(bits[2 * i], bits[2 * i + 1]));
+                }
+                action.accept(batch);
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package io.hohichh.marketplace.order.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.hohichh.marketplace.order.dto.product.ProductImportFormat;
+import io.hohichh.marketplace.order.dto.product.ProductImportLineDto;
+import io.hohichh.marketplace.order.exception.InvalidRequestException;
+import lombok.AllArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+//NOTE: the input is streamed with COPY into a temporary staging table and merged into
+//products with two set-based statements, so neither the input nor the products are held
+//in memory. NDJSON is converted to CSV rows on the fly while it is copied.
+//Rows with an id seen several times are reduced to the last one before the merge.
+//Ids of updated products are fetched from the UPDATE in chunks and kept compactly (see UpdatedIds).
+@AllArgsConstructor
+public class ProductImportRepositoryImpl implements ProductImportRepository {
+    private static final Logger log = LoggerFactory.getLogger(ProductImportRepositoryImpl.class);
+
+    private static final String CREATE_STAGING = """
+            CREATE TEMP TABLE product_import (
+                line_no bigserial,
+                id uuid,
+                name varchar(256) NOT NULL CHECK (btrim(name) <> ''),
+                price decimal(19, 2) NOT NULL
+            ) ON COMMIT DROP
+            """;
+    private static final String COPY_CSV_WITH_HEADER =
+            "COPY product_import (id, name, price) FROM STDIN WITH (FORMAT csv, HEADER MATCH)";
+    private static final String COPY_CSV =
+            "COPY product_import (id, name, price) FROM STDIN WITH (FORMAT csv)";
+    private static final String DROP_DUPLICATES = """
+            DELETE FROM product_import older
+            USING product_import newer
+            WHERE older.id = newer.id AND older.line_no < newer.line_no
+            """;
+    private static final String UPDATE_CHANGED = """
+            UPDATE products p
+            SET name = s.name, price = s.price
+            FROM product_import s
+            WHERE p.id = s.id AND (p.name, p.price) IS DISTINCT FROM (s.name, s.price)
+            RETURNING p.id
+            """;
+    private static final String INSERT_NEW = """
+            INSERT INTO products (id, name, price)
+            SELECT COALESCE(s.id, gen_random_uuid()), s.name, s.price
+            FROM product_import s
+            WHERE s.id IS NULL OR NOT EXISTS (SELECT 1 FROM products p WHERE p.id = s.id)
+            ON CONFLICT (id) DO NOTHING
+            """;
+    private static final int UPDATED_IDS_FETCH_SIZE = 1000;
+    //22 - data exception, 23 - integrity constraint violation
+    private static final List<String> INVALID_INPUT_STATES = List.of("22", "23");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public ImportResult importProducts(ProductImportFormat format, InputStream input) {
+        jdbcTemplate.execute(CREATE_STAGING);
+        long received = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            try {
+                return switch (format) {
+                    case CSV -> copyManager.copyIn(COPY_CSV_WITH_HEADER, input);
+                    case NDJSON -> copyNdjson(copyManager, input);
+                };
+            } catch (SQLException e) {
+                if (e.getSQLState() != null && INVALID_INPUT_STATES.contains(e.getSQLState().substring(0, 2))) {
+                    throw new InvalidRequestException("Invalid product import data: " + e.getMessage());
+                }
+                throw e;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        jdbcTemplate.update(DROP_DUPLICATES);
+        UpdatedIds updatedIds = new UpdatedIds();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(UPDATE_CHANGED);
+            statement.setFetchSize(UPDATED_IDS_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) row -> updatedIds.add(row.getObject(1, UUID.class)));
+        long inserted = jdbcTemplate.update(INSERT_NEW);
+
+        log.info("Product import merged: {} lines, {} inserted, {} updated", received, inserted, updatedIds.size());
+        return new ImportResult(received, inserted, updatedIds);
+    }
+
+    private long copyNdjson(CopyManager copyManager, InputStream input) throws SQLException, IOException {
+        CopyIn copyIn = copyManager.copyIn(COPY_CSV);
+        try {
+            Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(new PGCopyOutputStream(copyIn), StandardCharsets.UTF_8));
+            MappingIterator<ProductImportLineDto> lines =
+                    objectMapper.readerFor(ProductImportLineDto.class).readValues(input);
+            long lineNumber = 1;
+            ProductImportLineDto line;
+            while ((line = nextLine(lines, lineNumber)) != null) {
+                writeCsvRow(writer, line, lineNumber++);
+            }
+            writer.flush();
+            return copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private static ProductImportLineDto nextLine(MappingIterator<ProductImportLineDto> lines,
+                                                 long lineNumber) throws IOException {
+        try {
+            return lines.hasNextValue() ? lines.nextValue() : null;
+        } catch (JsonProcessingException e) {
+            throw new InvalidRequestException("Invalid product import data at line " + lineNumber);
+        }
+    }
+
+    private static void writeCsvRow(Writer writer, ProductImportLineDto line, long lineNumber) throws IOException {
+        if (line.name() == null || line.name().isBlank() || line.price() == null) {
+            throw new InvalidRequestException("Product name and price are required, line " + lineNumber);
+        }
+        if (line.id() != null) {
+            writer.write(line.id().toString());
+        }
+        writer.write(',');
+        writer.write('"');
+        writer.write(line.name().replace("\"", "\"\""));
+        writer.write('"');
+        writer.write(',');
+        writer.write(line.price().toPlainString());
+        writer.write('\n');
+    }
+}
@@ -1,9 +1,17 @@
 package io.hohichh.marketplace.order.repository;
 
 import io.hohichh.marketplace.order.model.Product;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+
 import java.util.UUID;
 
-public interface ProductRepository extends JpaRepository<Product, UUID> {
+public interface ProductRepository extends JpaRepository<Product, UUID>, ProductImportRepository {
+
+    //NOTE: keyset pagination over the primary key
+    List<Product> findAllByOrderByIdAsc(Limit limit);
+
+    List<Product> findByIdGreaterThanOrderByIdAsc(UUID id, Limit limit);
 }
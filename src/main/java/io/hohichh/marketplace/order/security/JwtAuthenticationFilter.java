@@ -1,7 +1,6 @@
 package io.hohichh.marketplace.order.security;
 
 
-import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -31,13 +30,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                    FilterChain filterChain) throws  IOException, ServletException {
         String token = extractToken(request);
 
-        if(token != null && jwtValidator.validate(token)) {
-            Claims claims = jwtValidator.getClaims(token);
-            String userId = claims.getSubject();
-            String role = claims.get("role", String.class);
+        if(token != null) {
+            jwtValidator.verify(token).ifPresent(claims -> {
+                String userId = claims.getSubject();
+                String role = claims.get("role", String.class);
 
-            Authentication auth = getAuthentication(role, userId);
-            SecurityContextHolder.getContext().setAuthentication(auth);
+                Authentication auth = getAuthentication(role, userId);
+                SecurityContextHolder.getContext().setAuthentication(auth);
+            });
         }
 
         filterChain.doFilter(request, response);
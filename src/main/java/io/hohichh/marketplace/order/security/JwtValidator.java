@@ -1,49 +1,84 @@
 package io.hohichh.marketplace.order.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Clock;
+import java.time.Duration;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.Optional;
 
+//NOTE: tokens are verified once and their claims are kept in a bounded cache keyed by
+//the SHA-256 of the token, so the raw bearer token is never kept in memory. Expiry of
+//cached claims is re-checked against the clock on every hit. Invalid tokens are not cached.
 @Component
 @Slf4j
 public class JwtValidator {
-    private final SecretKey accessSecret;
+    private final JwtParser parser;
     private final Clock clock;
+    private final Cache<String, Claims> verifiedClaims;
 
-
-    public JwtValidator(@Value("${jwt.access.secret}") String accessSecretStr, Clock clock) {
-        this.accessSecret = Keys.hmacShaKeyFor(accessSecretStr.getBytes(StandardCharsets.UTF_8));
+    public JwtValidator(@Value("${jwt.access.secret}") String accessSecretStr,
+                        Clock clock,
+                        @Value("${application.jwt.claims-cache.max-size:10000}") long cacheMaxSize,
+                        @Value("${application.jwt.claims-cache.time-to-live:5m}") Duration cacheTimeToLive) {
+        this.parser = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(accessSecretStr.getBytes(StandardCharsets.UTF_8)))
+                .clock(() -> Date.from(clock.instant()))
+                .build();
         this.clock = clock;
+        this.verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheTimeToLive)
+                .build();
     }
 
-    public boolean validate(String token) {
+    public Optional<Claims> verify(String token) {
+        String digest = digest(token);
+
+        Claims claims = verifiedClaims.getIfPresent(digest);
+        if (claims != null) {
+            if (!isExpired(claims)) {
+                return Optional.of(claims);
+            }
+            verifiedClaims.invalidate(digest);
+            log.error("Invalid JWT token: token expired");
+            return Optional.empty();
+        }
+
         try {
-            Jwts.parser()
-                    .verifyWith(accessSecret)
-                    .clock(() -> Date.from(clock.instant()))
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            claims = parser.parseSignedClaims(token).getPayload();
         } catch (Exception e) {
             log.error("Invalid JWT token: {}", e.getMessage());
-            return false;
+            return Optional.empty();
         }
+
+        verifiedClaims.put(digest, claims);
+        return Optional.of(claims);
     }
 
-    public Claims getClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(accessSecret)
-                .clock(() -> Date.from(clock.instant()))
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private boolean isExpired(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return expiration != null && !expiration.toInstant().isAfter(clock.instant());
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -16,8 +16,8 @@ public class OrderSecurity {
     public boolean isOrderOwner(UUID orderId, Authentication authentication) {
         String currentUserId = authentication.getName();
 
-        return orderRepository.findById(orderId)
-                .map(order -> order.getUserId().toString().equals(currentUserId))
+        return orderRepository.findUserIdById(orderId)
+                .map(userId -> userId.toString().equals(currentUserId))
                 .orElse(false);
     }
 
@@ -0,0 +1,38 @@
+package io.hohichh.marketplace.order.service;
+
+import io.hohichh.marketplace.order.dto.OrderWithItemsDto;
+import io.hohichh.marketplace.order.exception.ResourceNotFoundException;
+import io.hohichh.marketplace.order.mapper.OrderMapper;
+import io.hohichh.marketplace.order.model.order.Order;
+import io.hohichh.marketplace.order.repository.OrderRepository;
+import lombok.AllArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+//NOTE: the "orders" cache holds only the order and its items, without the user.
+//OrderServiceImpl composes the user in on every read from the user profile cache,
+//so a degraded user lookup is never cached together with the order.
+@Component
+@AllArgsConstructor
+public class CachedOrderReader {
+    private final OrderRepository orderRepository;
+    private final OrderMapper orderMapper;
+
+    private static final Logger log = LoggerFactory.getLogger(CachedOrderReader.class);
+
+    @Transactional(readOnly = true)
+    @Cacheable(value = "orders", key = "#id", sync = true)
+    public OrderWithItemsDto getOrder(UUID id) {
+        Order order = orderRepository.findById(id).orElseThrow(() -> {
+            log.error("Order not found with id: {}", id);
+            return new ResourceNotFoundException(String.format("Order with id %s not found", id));
+        });
+
+        return orderMapper.toDtoWithItems(order, null);
+    }
+}
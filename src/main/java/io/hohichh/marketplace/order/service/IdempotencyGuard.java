@@ -0,0 +1,166 @@
+package io.hohichh.marketplace.order.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.hohichh.marketplace.order.exception.ActionNotPermittedException;
+import io.hohichh.marketplace.order.exception.InvalidRequestException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+//NOTE: must be called outside of the transaction of the guarded action,
+//so a result is only stored once it is committed.
+//The in-flight marker is renewed while the action runs, so a slow first call can't
+//let a duplicate through; a crashed instance releases the key after in-flight-lease.
+@Component
+@Slf4j
+public class IdempotencyGuard {
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration timeToLive;
+    private final Duration inFlightTimeout;
+    private final Duration inFlightLease;
+    private final ScheduledExecutorService leaseRenewer = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("idempotency-lease-renewer").daemon().factory());
+
+    private static final String IN_FLIGHT = "IN_FLIGHT";
+    private static final long POLL_INTERVAL_MS = 50;
+
+    public IdempotencyGuard(@Qualifier("cacheRedisTemplate") RedisTemplate<String, Object> redisTemplate,
+                            ObjectMapper objectMapper,
+                            @Value("${application.idempotency.time-to-live:24h}") Duration timeToLive,
+                            @Value("${application.idempotency.in-flight-timeout:30s}") Duration inFlightTimeout,
+                            @Value("${application.idempotency.in-flight-lease:30s}") Duration inFlightLease) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.timeToLive = timeToLive;
+        this.inFlightTimeout = inFlightTimeout;
+        this.inFlightLease = inFlightLease;
+    }
+
+    //runs the action once per (scope, key); duplicates wait for the first call and get its result.
+    //A key reused with a different request is rejected instead of replaying an unrelated result.
+    public <T> T execute(String scope, String key, Object request, Class<T> resultType, Supplier<T> action) {
+        String redisKey = "idempotency::" + scope + "::" + key;
+        String requestKey = redisKey + "::request";
+        String requestHash = hash(request);
+        long deadline = System.currentTimeMillis() + inFlightTimeout.toMillis();
+
+        while (true) {
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(redisKey, IN_FLIGHT, inFlightLease))) {
+                redisTemplate.opsForValue().set(requestKey, requestHash, inFlightLease);
+                return executeAndStore(redisKey, requestKey, requestHash, action);
+            }
+
+            Object storedHash = redisTemplate.opsForValue().get(requestKey);
+            if (storedHash != null && !requestHash.equals(storedHash)) {
+                log.warn("Idempotency key {} reused with a different request", key);
+                throw new InvalidRequestException(
+                        "Idempotency key " + key + " was already used for a different request");
+            }
+
+            Object stored = redisTemplate.opsForValue().get(redisKey);
+            if (!IN_FLIGHT.equals(stored) && resultType.isInstance(stored)) {
+                log.info("Replaying stored result for idempotency key {}", key);
+                return resultType.cast(stored);
+            }
+
+            if (System.currentTimeMillis() >= deadline) {
+                log.warn("Request with idempotency key {} is still in progress", key);
+                throw new ActionNotPermittedException(
+                        "Request with idempotency key " + key + " is still in progress");
+            }
+            //either still in flight or the first attempt failed and released the key
+            if (stored != null) {
+                pause();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        leaseRenewer.shutdownNow();
+    }
+
+    private <T> T executeAndStore(String redisKey, String requestKey, String requestHash, Supplier<T> action) {
+        Lease lease = new Lease(redisKey, requestKey);
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            lease.release();
+            redisTemplate.delete(redisKey);
+            redisTemplate.delete(requestKey);
+            throw e;
+        }
+
+        lease.release();
+        redisTemplate.opsForValue().set(redisKey, result, timeToLive);
+        redisTemplate.opsForValue().set(requestKey, requestHash, timeToLive);
+        return result;
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to fingerprint idempotent request", e);
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(POLL_INTERVAL_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ActionNotPermittedException("Interrupted while waiting for idempotent request");
+        }
+    }
+
+    //extends the in-flight marker every third of the lease until released; release waits for
+    //a running renewal, so it can't shorten the ttl of the result stored afterwards
+    private final class Lease {
+        private final String redisKey;
+        private final String requestKey;
+        private final ScheduledFuture<?> renewal;
+        private boolean released;
+
+        private Lease(String redisKey, String requestKey) {
+            this.redisKey = redisKey;
+            this.requestKey = requestKey;
+            long period = Math.max(1, inFlightLease.toMillis() / 3);
+            this.renewal = leaseRenewer.scheduleAtFixedRate(this::renew, period, period, TimeUnit.MILLISECONDS);
+        }
+
+        private synchronized void renew() {
+            if (released) {
+                return;
+            }
+            try {
+                redisTemplate.expire(redisKey, inFlightLease);
+                redisTemplate.expire(requestKey, inFlightLease);
+            } catch (RuntimeException e) {
+                log.warn("Failed to renew in-flight marker {}", redisKey, e);
+            }
+        }
+
+        private synchronized void release() {
+            released = true;
+            renewal.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package io.hohichh.marketplace.order.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.hohichh.marketplace.order.dto.OrderSearchFilter;
+import io.hohichh.marketplace.order.mapper.OrderMapper;
+import io.hohichh.marketplace.order.model.OrderItem;
+import io.hohichh.marketplace.order.model.order.Order;
+import io.hohichh.marketplace.order.repository.OrderItemRepository;
+import io.hohichh.marketplace.order.repository.OrderSpecifications;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+//NOTE: writes the orders matching a filter as NDJSON, one OrderExportDto per line.
+//Orders are read through a forward-only cursor (Postgres only uses one inside a transaction)
+//and handled in chunks of fetchSize: items of a chunk are loaded with one query, the lines
+//are written and flushed, then the persistence context is cleared. Memory use depends on
+//the fetch size only, not on the number of exported orders.
+@Component
+public class OrderExportWriter {
+    private static final byte NEW_LINE = '\n';
+    private static final Logger log = LoggerFactory.getLogger(OrderExportWriter.class);
+
+    private final EntityManager entityManager;
+    private final OrderItemRepository orderItemRepository;
+    private final OrderMapper orderMapper;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public OrderExportWriter(EntityManager entityManager,
+                             OrderItemRepository orderItemRepository,
+                             OrderMapper orderMapper,
+                             ObjectMapper objectMapper,
+                             @Value("${application.orders.export.fetch-size:500}") int fetchSize) {
+        this.entityManager = entityManager;
+        this.orderItemRepository = orderItemRepository;
+        this.orderMapper = orderMapper;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    @Transactional(readOnly = true)
+    public long write(OrderSearchFilter filter, boolean includeItems, OutputStream out) throws IOException {
+        long written = 0;
+        try (Stream<Order> orders = streamOrders(filter)) {
+            Iterator<Order> iterator = orders.iterator();
+            List<Order> chunk = new ArrayList<>(fetchSize);
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == fetchSize || !iterator.hasNext()) {
+                    writeChunk(chunk, includeItems, out);
+                    written += chunk.size();
+                    chunk.clear();
+                    entityManager.clear();
+                }
+            }
+        }
+        out.flush();
+
+        log.info("Orders exported: {}", written);
+        return written;
+    }
+
+    private Stream<Order> streamOrders(OrderSearchFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Order> query = cb.createQuery(Order.class);
+        Root<Order> root = query.from(Order.class);
+        query.where(OrderSpecifications.matching(filter).toPredicate(root, query, cb));
+        query.orderBy(cb.desc(root.get("creationDate")), cb.desc(root.get("id")));
+
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    private void writeChunk(List<Order> chunk, boolean includeItems, OutputStream out) throws IOException {
+        Map<UUID, List<OrderItem>> items = includeItems
+                ? orderItemRepository.findByOrderIdIn(chunk.stream().map(Order::getId).toList()).stream()
+                        .collect(Collectors.groupingBy(item -> item.getOrder().getId()))
+                : Map.of();
+
+        for (Order order : chunk) {
+            List<OrderItem> orderItems = includeItems ? items.getOrDefault(order.getId(), List.of()) : null;
+            out.write(objectMapper.writeValueAsBytes(orderMapper.toExportDto(order, orderItems)));
+            out.write(NEW_LINE);
+        }
+        out.flush();
+    }
+}
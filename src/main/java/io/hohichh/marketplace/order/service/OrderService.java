@@ -3,18 +3,26 @@ package io.hohichh.marketplace.order.service;
 import io.hohichh.marketplace.order.dto.*;
 import io.hohichh.marketplace.order.dto.item.NewOrderItemDto;
 import io.hohichh.marketplace.order.model.order.Status;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.data.domain.Pageable;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public interface OrderService {
     OrderWithItemsDto createOrder(List<NewOrderItemDto> items);
+    List<OrderBatchResultDto> createOrders(List<NewOrderDto> orders);
     void updateOrderStatusSystem(UUID id, Status status);
+    int updateOrderStatusesSystem(Map<UUID, Status> statuses);
     OrderWithItemsDto updateOrderStatus(UUID id, NewStatusOrderDto order);
     OrderWithItemsDto cancelOrder(UUID id);
     void deleteOrder(UUID id);
     OrderWithItemsDto getOrderById(UUID id);
     List<OrderDto> getOrdersByUserId(UUID userId);
-    Page<OrderDto> searchOrders(List<UUID> ids, List<Status> statuses, Pageable pageable);
+    CursorPageDto<OrderDto> getOrdersByUserId(UUID userId, String cursor, int size);
+    Slice<OrderDto> searchOrders(OrderSearchFilter filter, CountMode countMode, Pageable pageable);
+    StreamingResponseBody exportOrders(OrderSearchFilter filter, boolean includeItems);
+    CursorPageDto<OrderDto> scrollOrders(OrderSearchFilter filter, String cursor, int size);
+    DeadLetterReplayResultDto replayPaymentDeadLetters(int limit);
 }
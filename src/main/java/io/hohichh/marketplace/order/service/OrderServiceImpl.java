@@ -1,25 +1,31 @@
 package io.hohichh.marketplace.order.service;
 
-import io.hohichh.marketplace.order.client.UserServiceClient;
+import io.hohichh.marketplace.order.cache.RedisBulkCache;
+import io.hohichh.marketplace.order.client.UserProfileLookup;
+import io.hohichh.marketplace.order.config.PaginationProperties;
 import io.hohichh.marketplace.order.dto.*;
 import io.hohichh.marketplace.order.dto.item.NewOrderItemDto;
 import io.hohichh.marketplace.order.dto.product.ProductDto;
 import io.hohichh.marketplace.order.exception.ActionNotPermittedException;
+import io.hohichh.marketplace.order.exception.InvalidRequestException;
 import io.hohichh.marketplace.order.exception.ResourceNotFoundException;
-import io.hohichh.marketplace.order.kafka.OrderProducer;
+import io.hohichh.marketplace.order.kafka.PaymentDltReplayer;
 import io.hohichh.marketplace.order.mapper.*;
 import io.hohichh.marketplace.order.model.OrderItem;
+import io.hohichh.marketplace.order.model.OrderOutboxEvent;
 import io.hohichh.marketplace.order.model.order.*;
 import io.hohichh.marketplace.order.repository.*;
-import io.hohichh.marketplace.order.dto.event.OrderCreatedEvent;
 import lombok.AllArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cloud.client.circuitbreaker.CircuitBreakerFactory;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -27,13 +33,22 @@ import org.springframework.transaction.annotation.Transactional;
 
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 
 @Service
@@ -52,53 +67,86 @@ public class OrderServiceImpl implements OrderService {
     private static final Logger log = LoggerFactory.getLogger(OrderServiceImpl.class);
     private final OrderItemMapper orderItemMapper;
 
-    private final UserServiceClient userClient;
-    private final CircuitBreakerFactory<?,?> circuitBreakerFactory;
+    private final UserProfileLookup userLookup;
+    private final CachedOrderReader orderReader;
+    private final PaginationProperties pagination;
+    private final OrderExportWriter orderExportWriter;
+    private final RedisBulkCache bulkCache;
+    private final PaymentDltReplayer paymentDltReplayer;
 
-    private final OrderProducer orderProducer;
+    private final OrderOutboxRepository orderOutboxRepository;
 
+    private static final String ORDERS_CACHE = "orders";
     private static final String ORDER_NOT_FOUND_MSG = "Order with id %s not found";
+    private static final String USER_LOOKUP_BUDGET_HEADER = "X-User-Lookup-Budget-Ms";
+    private static final int MONEY_SCALE = 2;
+    private static final Sort SEEK_ORDER = Sort.by(Sort.Direction.DESC, "creationDate", "id");
 
     @Transactional
     public OrderWithItemsDto createOrder(List<NewOrderItemDto> items){
         log.debug("Creating new order with {} items", items.size());
         UUID userId = UUID.fromString(SecurityContextHolder.getContext().getAuthentication().getName());
         String token = extractTokenFromRequest();
+        CompletableFuture<UserDto> userLookupResult = userLookup.lookupAsync(token, userId);
 
-        Order order = new Order();
-        order.setStatus(Status.PENDING);
-        order.setCreationDate(LocalDate.now(clock));
-        order.setUserId(userId);
-
-        List<OrderItem> entityItems = new ArrayList<>();
-        for(NewOrderItemDto itemDto : items){
-            ProductDto product = productService.getProductById(itemDto.productId());
-            OrderItem orderItem = orderItemMapper.toOrderItem(itemDto, order, product);
+        Map<UUID, ProductDto> products = productService.getProductsByIds(
+                items.stream().map(NewOrderItemDto::productId).toList());
 
-            entityItems.add(orderItem);
-        }
-        order.setOrderItems(entityItems);
-        Order savedOrder = orderRepository.save(order);
-        BigDecimal amount = savedOrder.getOrderItems().stream()
-                .map(item -> item.getPricePerUnit().multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        Order savedOrder = orderRepository.save(newOrder(userId, items, products));
 
-        //send update to kafka
-        orderProducer.sendOrderCreatedEvent(new OrderCreatedEvent(
-                savedOrder.getId().toString(),
-                savedOrder.getUserId().toString(),
-                amount
-        ));
+        //event is published to kafka by the outbox relay after commit
+        orderOutboxRepository.save(newOutboxEvent(savedOrder));
 
-        UserDto userDto = getUserWithCircuitBreaker(token, userId);
+        UserDto userDto = userLookup.await(userLookupResult, extractLookupBudgetFromRequest());
 
-        log.info("Order {} created with {} items successfully", savedOrder.getId(), entityItems.size());
+        log.info("Order {} created with {} items successfully", savedOrder.getId(), items.size());
         return orderMapper.toDtoWithItems(savedOrder, userDto);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = "orders", key = "#id")
+    @PreAuthorize("hasRole('ADMIN')")
+    public List<OrderBatchResultDto> createOrders(List<NewOrderDto> orders) {
+        log.debug("Creating batch of {} orders", orders.size());
+
+        Map<UUID, ProductDto> products = productService.findProductsByIds(orders.stream()
+                .filter(order -> order != null && order.items() != null)
+                .flatMap(order -> order.items().stream())
+                .filter(Objects::nonNull)
+                .map(NewOrderItemDto::productId)
+                .filter(Objects::nonNull)
+                .toList());
+
+        String[] errors = new String[orders.size()];
+        Order[] createdOrders = new Order[orders.size()];
+        for (int i = 0; i < orders.size(); i++) {
+            NewOrderDto newOrderDto = orders.get(i);
+            errors[i] = validateBatchEntry(newOrderDto, products);
+            if (errors[i] == null) {
+                createdOrders[i] = newOrder(newOrderDto.userId(), newOrderDto.items(), products);
+            }
+        }
+
+        //ids are generated on persist, inserts are sent as jdbc batches on flush
+        List<Order> ordersToSave = Arrays.stream(createdOrders).filter(Objects::nonNull).toList();
+        orderRepository.saveAll(ordersToSave);
+        orderOutboxRepository.saveAll(ordersToSave.stream().map(this::newOutboxEvent).toList());
+
+        List<OrderBatchResultDto> results = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            results.add(new OrderBatchResultDto(
+                    i,
+                    createdOrders[i] != null ? createdOrders[i].getId() : null,
+                    errors[i]));
+        }
+
+        log.info("Batch processed: {} of {} orders created", ordersToSave.size(), orders.size());
+        return results;
+    }
+
+    @Override
+    @Transactional
+    @CacheEvict(value = {"orders", "orderOwners"}, key = "#id")
     public void updateOrderStatusSystem(UUID id, Status status) {
         log.debug("System update for order with id {} to status {}", id, status);
 
@@ -119,10 +167,30 @@ public class OrderServiceImpl implements OrderService {
         log.info("Order with id {} updated to {} by system", id, status);
     }
 
+    //NOTE: one UPDATE per target status, each in its own transaction; the "orders" entries of a
+    //group are evicted in pipelined batches right after its commit, so a failing later group
+    //can't leave committed ones cached. Owners don't change, so "orderOwners" stays.
+    @Override
+    public int updateOrderStatusesSystem(Map<UUID, Status> statuses) {
+        log.debug("System update of {} orders", statuses.size());
+
+        Map<Status, List<UUID>> idsByStatus = new EnumMap<>(Status.class);
+        statuses.forEach((id, status) -> idsByStatus.computeIfAbsent(status, s -> new ArrayList<>()).add(id));
+
+        int updated = 0;
+        for (Map.Entry<Status, List<UUID>> entry : idsByStatus.entrySet()) {
+            updated += orderRepository.updateStatuses(entry.getValue().toArray(UUID[]::new), entry.getKey().name());
+            bulkCache.evictAll(ORDERS_CACHE, entry.getValue());
+        }
+
+        log.info("{} of {} orders updated by system", updated, statuses.size());
+        return updated;
+    }
+
     @Override
     @Transactional
     @PreAuthorize("hasRole('ADMIN')")
-    @CacheEvict(value = "orders", key = "#id")
+    @CacheEvict(value = {"orders", "orderOwners"}, key = "#id")
     public OrderWithItemsDto updateOrderStatus(UUID id, NewStatusOrderDto order) {
         log.debug("Updating order with id {}", id);
 
@@ -133,12 +201,14 @@ public class OrderServiceImpl implements OrderService {
                 }
         );
 
+        CompletableFuture<UserDto> userLookupResult =
+                userLookup.lookupAsync(extractTokenFromRequest(), orderToUpd.getUserId());
+
         orderToUpd.setStatus(order.status());
 
         Order savedOrder = orderRepository.save(orderToUpd);
 
-        String token = extractTokenFromRequest();
-        UserDto userDto = getUserWithCircuitBreaker(token, savedOrder.getUserId());
+        UserDto userDto = userLookup.await(userLookupResult, extractLookupBudgetFromRequest());
 
         log.info("order with id {} updated successfully", id);
         return orderMapper.toDtoWithItems(savedOrder, userDto);
@@ -147,7 +217,7 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional
     @PreAuthorize("hasRole('ADMIN') or @orderSecurity.isOrderOwner(#id, authentication)")
-    @CacheEvict(value = "orders", key = "#id")
+    @CacheEvict(value = {"orders", "orderOwners"}, key = "#id")
     public OrderWithItemsDto cancelOrder(UUID id) {
         log.debug("Cancelling order with id {}", id);
 
@@ -162,10 +232,12 @@ public class OrderServiceImpl implements OrderService {
             throw new ActionNotPermittedException("Order status is not PENDING");
         }
 
+        CompletableFuture<UserDto> userLookupResult =
+                userLookup.lookupAsync(extractTokenFromRequest(), order.getUserId());
+
         Order savedOrder = orderRepository.save(order);
 
-        String token = extractTokenFromRequest();
-        UserDto userDto = getUserWithCircuitBreaker(token, savedOrder.getUserId());
+        UserDto userDto = userLookup.await(userLookupResult, extractLookupBudgetFromRequest());
 
         log.info("Order with id {} cancelled successfully", id);
         return orderMapper.toDtoWithItems(savedOrder, userDto);
@@ -173,7 +245,7 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     @Transactional
-    @CacheEvict(value = "orders", key = "#id")
+    @CacheEvict(value = {"orders", "orderOwners"}, key = "#id")
     @PreAuthorize("hasRole('ADMIN')")
     public void deleteOrder(UUID id) {
         log.debug("Deleting order with id {}", id);
@@ -189,22 +261,18 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
-    @Transactional(readOnly = true)
     @PreAuthorize("hasRole('ADMIN') or @orderSecurity.isOrderOwner(#id, authentication)")
-    @Cacheable(value = "orders", key = "#id")
     public OrderWithItemsDto getOrderById(UUID id) {
         log.debug("Getting order with id {}", id);
 
-        Order order = orderRepository.findById(id).orElseThrow(() -> {
-            log.error("Order not found with id: {}", id);
-            return new ResourceNotFoundException(String.format(ORDER_NOT_FOUND_MSG, id));
-        });
+        OrderWithItemsDto order = orderReader.getOrder(id);
 
-        String token = extractTokenFromRequest();
-        UserDto userDto = getUserWithCircuitBreaker(token, order.getUserId());
+        UserDto userDto = userLookup.await(
+                userLookup.lookupAsync(extractTokenFromRequest(), order.userId()),
+                extractLookupBudgetFromRequest());
 
         log.info("Order with id {} got successfully", id);
-        return orderMapper.toDtoWithItems(order, userDto);
+        return order.withUserDto(userDto);
     }
 
     @Override
@@ -222,30 +290,176 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional(readOnly = true)
     @PreAuthorize("hasRole('ADMIN')")
-    public Page<OrderDto> searchOrders(List<UUID> ids, List<Status> statuses, Pageable pageable) {
-        log.debug("Searching orders by filter. Ids count: {}, Statuses count: {}",
-                ids != null ? ids.size() : "null",
-                statuses != null ? statuses.size() : "null");
+    public Slice<OrderDto> searchOrders(OrderSearchFilter filter, CountMode countMode, Pageable pageable) {
+        log.debug("Searching orders by filter {}, count mode {}", filter, countMode);
+
+        Specification<Order> spec = OrderSpecifications.matching(filter);
+        Slice<OrderDto> result = switch (countMode) {
+            case EXACT -> orderRepository.findAll(spec, pageable).map(orderMapper::toDto);
+            case NONE -> orderRepository.findBy(spec, query -> query.slice(pageable)).map(orderMapper::toDto);
+            case ESTIMATED -> withEstimatedTotal(filter,
+                    orderRepository.findBy(spec, query -> query.slice(pageable)).map(orderMapper::toDto));
+        };
+
+        log.info("Orders found: {}", result.getNumberOfElements());
+        return result;
+    }
 
-        List<UUID> safeIds = (ids != null && ids.isEmpty()) ? null : ids;
-        List<Status> safeStatuses = (statuses != null && statuses.isEmpty()) ? null : statuses;
+    //the estimate is only trusted where the slice itself can't tell the total
+    private Page<OrderDto> withEstimatedTotal(OrderSearchFilter filter, Slice<OrderDto> slice) {
+        long seen = slice.getPageable().isPaged()
+                ? slice.getPageable().getOffset() + slice.getNumberOfElements()
+                : slice.getNumberOfElements();
+        long total = slice.hasNext()
+                ? Math.max(orderRepository.estimateCount(filter), seen + 1)
+                : seen;
+        return new PageImpl<>(slice.getContent(), slice.getPageable(), total);
+    }
 
-        Page<Order> ordersPage = orderRepository.findAllByFilter(safeIds, safeStatuses, pageable);
+    //NOTE: access is checked here, on the request thread; the body is written later
+    //on an async thread, inside the read-only transaction of OrderExportWriter
+    @Override
+    @PreAuthorize("hasRole('ADMIN')")
+    public StreamingResponseBody exportOrders(OrderSearchFilter filter, boolean includeItems) {
+        log.debug("Exporting orders by filter {}, with items: {}", filter, includeItems);
+        return out -> orderExportWriter.write(filter, includeItems, out);
+    }
 
-        log.info("Orders found: {}", ordersPage.getTotalElements());
+    @Override
+    @PreAuthorize("hasRole('ADMIN')")
+    public DeadLetterReplayResultDto replayPaymentDeadLetters(int limit) {
+        log.debug("Replaying up to {} dead-lettered payment events", limit);
 
-        return ordersPage.map(orderMapper::toDto);
+        if (limit <= 0) {
+            throw new InvalidRequestException("Replay limit must be positive");
+        }
+        return new DeadLetterReplayResultDto(paymentDltReplayer.replay(limit));
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    @PreAuthorize("hasRole('ADMIN')")
+    public CursorPageDto<OrderDto> scrollOrders(OrderSearchFilter filter, String cursor, int size) {
+        log.debug("Scrolling orders by filter {}, page size {}", filter, size);
 
-    private UserDto getUserWithCircuitBreaker(String token, UUID userId) {
-        return circuitBreakerFactory.create("user-service").run(
-                () -> userClient.getUserById(token, userId),
-                throwable -> {
-                    log.warn("Failed to get user info for id {}: {}", userId, throwable.getMessage());
-                    return null;
-                }
-        );
+        Specification<Order> spec = OrderSpecifications.matching(filter);
+        if (cursor != null) {
+            SeekCursor position = decodeOrderCursor(cursor);
+            spec = spec.and(OrderSpecifications.before(position.creationDate(), position.id()));
+        }
+
+        int pageSize = pagination.limitPageSize(size);
+        //one extra row tells whether there is a next page
+        List<Order> orders = orderRepository.findBy(spec, query -> query
+                .sortBy(SEEK_ORDER)
+                .limit(pageSize + 1)
+                .all());
+
+        CursorPageDto<OrderDto> page = toCursorPage(orders, pageSize);
+        log.info("Orders scrolled: {}", page.content().size());
+        return page;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @PreAuthorize("hasRole('ADMIN') or @orderSecurity.isAccountOwner(#userId, authentication)")
+    public CursorPageDto<OrderDto> getOrdersByUserId(UUID userId, String cursor, int size) {
+        log.debug("Getting orders page by user id {}", userId);
+
+        int pageSize = pagination.limitPageSize(size);
+        Limit limit = Limit.of(pageSize + 1);
+        List<Order> orders;
+        if (cursor == null) {
+            orders = orderRepository.findFirstByUserId(userId, limit);
+        } else {
+            SeekCursor position = decodeOrderCursor(cursor);
+            orders = orderRepository.findNextByUserId(userId, position.creationDate(), position.id(), limit);
+        }
+
+        CursorPageDto<OrderDto> page = toCursorPage(orders, pageSize);
+        log.info("Orders page by user id got successfully {}", userId);
+        return page;
+    }
+
+    private static SeekCursor decodeOrderCursor(String cursor) {
+        SeekCursor position = SeekCursor.decode(cursor);
+        if (position.creationDate() == null) {
+            throw new InvalidRequestException("Invalid cursor");
+        }
+        return position;
+    }
+
+    //orders holds up to pageSize + 1 rows, the extra one only signals a next page
+    private CursorPageDto<OrderDto> toCursorPage(List<Order> orders, int pageSize) {
+        if (orders.size() <= pageSize) {
+            return new CursorPageDto<>(orderMapper.toDtoList(orders), null);
+        }
+
+        List<Order> page = orders.subList(0, pageSize);
+        Order last = page.getLast();
+        return new CursorPageDto<>(orderMapper.toDtoList(page),
+                new SeekCursor(last.getCreationDate(), last.getId()).encode());
+    }
+
+
+    private Order newOrder(UUID userId, List<NewOrderItemDto> items, Map<UUID, ProductDto> products) {
+        Order order = new Order();
+        order.setStatus(Status.PENDING);
+        order.setCreationDate(LocalDate.now(clock));
+        order.setUserId(userId);
+
+        //totals are summed in minor units, only the final amount becomes a BigDecimal
+        long totalMinorUnits = 0;
+        int itemCount = 0;
+        List<OrderItem> entityItems = new ArrayList<>();
+        for(NewOrderItemDto itemDto : items){
+            ProductDto product = products.get(itemDto.productId());
+            entityItems.add(orderItemMapper.toOrderItem(itemDto, order, product));
+
+            totalMinorUnits = Math.addExact(totalMinorUnits,
+                    Math.multiplyExact(toMinorUnits(product.price()), itemDto.quantity()));
+            itemCount += itemDto.quantity();
+        }
+        order.setOrderItems(entityItems);
+        order.setTotalAmount(BigDecimal.valueOf(totalMinorUnits, MONEY_SCALE));
+        order.setItemCount(itemCount);
+        return order;
+    }
+
+    private static long toMinorUnits(BigDecimal price) {
+        return price.setScale(MONEY_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private OrderOutboxEvent newOutboxEvent(Order order) {
+        OrderOutboxEvent outboxEvent = new OrderOutboxEvent();
+        outboxEvent.setOrderId(order.getId());
+        outboxEvent.setUserId(order.getUserId());
+        outboxEvent.setAmount(order.getTotalAmount());
+        outboxEvent.setCreatedAt(LocalDateTime.now(clock));
+        return outboxEvent;
+    }
+
+    private String validateBatchEntry(NewOrderDto order, Map<UUID, ProductDto> products) {
+        if (order == null || order.userId() == null) {
+            return "User id is required";
+        }
+        if (order.items() == null || order.items().isEmpty()) {
+            return "Order has no items";
+        }
+
+        List<UUID> unknownIds = new ArrayList<>();
+        for (NewOrderItemDto item : order.items()) {
+            if (item == null) {
+                return "Item is required";
+            }
+            if (item.quantity() == null || item.quantity() <= 0) {
+                return "Quantity must be positive";
+            }
+            if (item.productId() == null || !products.containsKey(item.productId())) {
+                unknownIds.add(item.productId());
+            }
+        }
+        return unknownIds.isEmpty() ? null : "Products with ids " + unknownIds + " not found";
     }
 
     private String extractTokenFromRequest() {
@@ -255,4 +469,22 @@ public class OrderServiceImpl implements OrderService {
         }
         return null;
     }
+
+    private Duration extractLookupBudgetFromRequest() {
+        ServletRequestAttributes attr = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        if (attr == null) {
+            return null;
+        }
+
+        String budget = attr.getRequest().getHeader(USER_LOOKUP_BUDGET_HEADER);
+        if (budget == null) {
+            return null;
+        }
+        try {
+            return Duration.ofMillis(Long.parseLong(budget.trim()));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed {} header: {}", USER_LOOKUP_BUDGET_HEADER, budget);
+            return null;
+        }
+    }
 }
@@ -0,0 +1,48 @@
+package io.hohichh.marketplace.order.service;
+
+import io.hohichh.marketplace.order.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+//NOTE: one-off job for orders created before total_amount/item_count existed.
+//Every chunk is a separate transaction, so it never holds locks on the whole table
+//and can safely run on several instances at once.
+@Component
+@Slf4j
+@ConditionalOnProperty(value = "application.orders.totals-backfill.enabled", havingValue = "true")
+public class OrderTotalsBackfill {
+    private final OrderRepository orderRepository;
+    private final int chunkSize;
+
+    public OrderTotalsBackfill(OrderRepository orderRepository,
+                               @Value("${application.orders.totals-backfill.chunk-size:1000}") int chunkSize) {
+        this.orderRepository = orderRepository;
+        this.chunkSize = chunkSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startBackfill() {
+        Thread.ofVirtual().name("order-totals-backfill").start(this::backfill);
+    }
+
+    void backfill() {
+        long updated = 0;
+        int chunkUpdated;
+        try {
+            do {
+                chunkUpdated = orderRepository.backfillTotals(chunkSize);
+                updated += chunkUpdated;
+                log.debug("Order totals backfill chunk done, {} orders updated so far", updated);
+            } while (chunkUpdated > 0);
+        } catch (RuntimeException e) {
+            log.error("Order totals backfill stopped after {} orders", updated, e);
+            return;
+        }
+
+        log.info("Order totals backfill finished, {} orders updated", updated);
+    }
+}
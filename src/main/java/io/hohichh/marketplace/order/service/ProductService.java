@@ -1,16 +1,26 @@
 package io.hohichh.marketplace.order.service;
 
+import io.hohichh.marketplace.order.dto.CursorPageDto;
 import io.hohichh.marketplace.order.dto.product.NewProductDto;
 import io.hohichh.marketplace.order.dto.product.ProductDto;
+import io.hohichh.marketplace.order.dto.product.ProductImportFormat;
+import io.hohichh.marketplace.order.dto.product.ProductImportResultDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Map;
 import java.util.UUID;
 
 public interface ProductService {
     ProductDto createProduct(NewProductDto product);
     ProductDto updateProduct(UUID id, NewProductDto product);
     void deleteProduct(UUID id);
+    ProductImportResultDto importProducts(ProductImportFormat format, InputStream input);
     Page<ProductDto> getAllProducts(Pageable pageable);
+    CursorPageDto<ProductDto> scrollProducts(String cursor, int size);
     ProductDto getProductById(UUID id);
+    Map<UUID, ProductDto> getProductsByIds(Collection<UUID> ids);
+    Map<UUID, ProductDto> findProductsByIds(Collection<UUID> ids);
 }
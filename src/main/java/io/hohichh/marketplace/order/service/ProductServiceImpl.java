@@ -1,23 +1,33 @@
 package io.hohichh.marketplace.order.service;
 
+import io.hohichh.marketplace.order.cache.RedisBulkCache;
+import io.hohichh.marketplace.order.config.PaginationProperties;
+import io.hohichh.marketplace.order.dto.CursorPageDto;
 import io.hohichh.marketplace.order.dto.product.NewProductDto;
 import io.hohichh.marketplace.order.dto.product.ProductDto;
+import io.hohichh.marketplace.order.dto.product.ProductImportFormat;
+import io.hohichh.marketplace.order.dto.product.ProductImportResultDto;
 import io.hohichh.marketplace.order.exception.ResourceNotFoundException;
 import io.hohichh.marketplace.order.mapper.ProductMapper;
 import io.hohichh.marketplace.order.model.Product;
+import io.hohichh.marketplace.order.repository.ProductImportRepository;
 import io.hohichh.marketplace.order.repository.ProductRepository;
 import lombok.AllArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.UUID;
+import java.io.InputStream;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 
 @AllArgsConstructor
@@ -25,6 +35,11 @@ import java.util.UUID;
 public class ProductServiceImpl implements ProductService {
     private ProductRepository productRepository;
     private ProductMapper productMapper;
+    private RedisBulkCache bulkCache;
+    private PaginationProperties pagination;
+
+    private static final String PRODUCTS_CACHE = "products";
+    private static final int IMPORT_EVICTION_BATCH_SIZE = 1000;
 
     private static final Logger logger = LoggerFactory.getLogger(ProductServiceImpl.class);
 
@@ -78,6 +93,20 @@ public class ProductServiceImpl implements ProductService {
         logger.info("Product with id {} deleted successfully", id);
     }
 
+    //NOTE: not transactional on purpose, changed products are evicted only after the import committed
+    @Override
+    @PreAuthorize("hasRole('ADMIN')")
+    public ProductImportResultDto importProducts(ProductImportFormat format, InputStream input) {
+        logger.debug("Attempt to import products from {}", format);
+
+        ProductImportRepository.ImportResult result = productRepository.importProducts(format, input);
+        result.updatedIds().forEachBatch(IMPORT_EVICTION_BATCH_SIZE,
+                batch -> bulkCache.evictAll(PRODUCTS_CACHE, batch));
+
+        logger.info("Products imported: {} inserted, {} updated", result.inserted(), result.updatedIds().size());
+        return new ProductImportResultDto(result.received(), result.inserted(), result.updatedIds().size());
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Page<ProductDto> getAllProducts(Pageable pageable) {
@@ -94,7 +123,27 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     @Transactional(readOnly = true)
-    @Cacheable(value = "products", key="#id")
+    public CursorPageDto<ProductDto> scrollProducts(String cursor, int size) {
+        logger.debug("Attempt to scroll products (page size {})", size);
+
+        int pageSize = pagination.limitPageSize(size);
+        //one extra row tells whether there is a next page
+        Limit limit = Limit.of(pageSize + 1);
+        List<Product> products = cursor == null
+                ? productRepository.findAllByOrderByIdAsc(limit)
+                : productRepository.findByIdGreaterThanOrderByIdAsc(SeekCursor.decode(cursor).id(), limit);
+
+        boolean hasNext = products.size() > pageSize;
+        List<Product> page = hasNext ? products.subList(0, pageSize) : products;
+        String nextCursor = hasNext ? new SeekCursor(null, page.getLast().getId()).encode() : null;
+
+        logger.info("Scrolled {} products", page.size());
+        return new CursorPageDto<>(page.stream().map(productMapper::toProductDto).toList(), nextCursor);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Cacheable(value = "products", key="#id", sync = true)
     public ProductDto getProductById(UUID id) {
         logger.debug("Attempt to retrieve product by id {}", id);
 
@@ -108,4 +157,47 @@ public class ProductServiceImpl implements ProductService {
         logger.info("Product with id {} found", id);
         return productMapper.toProductDto(product);
     }
-}
\ No newline at end of file
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<UUID, ProductDto> getProductsByIds(Collection<UUID> ids) {
+        Map<UUID, ProductDto> products = findProductsByIds(ids);
+
+        List<UUID> unknownIds = ids.stream()
+                .distinct()
+                .filter(id -> !products.containsKey(id))
+                .toList();
+        if (!unknownIds.isEmpty()) {
+            logger.error("Products with ids {} not found", unknownIds);
+            throw new ResourceNotFoundException("Products with ids " + unknownIds + " not found");
+        }
+
+        return products;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<UUID, ProductDto> findProductsByIds(Collection<UUID> ids) {
+        logger.debug("Attempt to retrieve {} products by ids", ids.size());
+
+        Set<UUID> uniqueIds = new LinkedHashSet<>(ids);
+        Map<UUID, ProductDto> products = new HashMap<>(
+                bulkCache.getAll(PRODUCTS_CACHE, uniqueIds, ProductDto.class));
+
+        List<UUID> missedIds = uniqueIds.stream()
+                .filter(id -> !products.containsKey(id))
+                .toList();
+
+        if (!missedIds.isEmpty()) {
+            Map<UUID, ProductDto> loadedProducts = productRepository.findAllById(missedIds).stream()
+                    .map(productMapper::toProductDto)
+                    .collect(Collectors.toMap(ProductDto::id, Function.identity()));
+
+            bulkCache.putAll(PRODUCTS_CACHE, loadedProducts);
+            products.putAll(loadedProducts);
+        }
+
+        logger.info("{} products found, {} of them loaded from database", products.size(), missedIds.size());
+        return products;
+    }
+}
@@ -0,0 +1,36 @@
+package io.hohichh.marketplace.order.service;
+
+import io.hohichh.marketplace.order.exception.InvalidRequestException;
+import org.springframework.lang.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+//NOTE: position after the last row of a page for keyset pagination.
+//Clients get it as an opaque base64url token and send it back unchanged.
+public record SeekCursor(@Nullable LocalDate creationDate, UUID id) {
+    private static final String VERSION = "1";
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = VERSION + SEPARATOR + (creationDate == null ? "" : creationDate) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SeekCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3 || !VERSION.equals(parts[0])) {
+                throw new InvalidRequestException("Invalid cursor");
+            }
+            LocalDate creationDate = parts[1].isEmpty() ? null : LocalDate.parse(parts[1]);
+            return new SeekCursor(creationDate, UUID.fromString(parts[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidRequestException("Invalid cursor");
+        }
+    }
+}
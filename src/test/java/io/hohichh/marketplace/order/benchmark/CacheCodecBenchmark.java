@@ -0,0 +1,88 @@
+package io.hohichh.marketplace.order.benchmark;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.hohichh.marketplace.order.cache.BinaryCacheValueSerializer;
+import io.hohichh.marketplace.order.dto.OrderWithItemsDto;
+import io.hohichh.marketplace.order.dto.UserDto;
+import io.hohichh.marketplace.order.dto.item.OrderItemDto;
+import io.hohichh.marketplace.order.model.order.Status;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+//Round trip (serialize + deserialize) of a cached order for each codec.
+//Payload sizes in bytes are printed once per trial.
+//Run: ./mvnw test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+//       -Dexec.args="-cp %classpath org.openjdk.jmh.Main CacheCodecBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheCodecBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int itemCount;
+
+    private OrderWithItemsDto order;
+
+    private RedisSerializer<Object> jdk;
+    private RedisSerializer<OrderWithItemsDto> json;
+    private BinaryCacheValueSerializer binary;
+    private BinaryCacheValueSerializer binaryLz4;
+
+    @Setup
+    public void setUp() {
+        order = order(itemCount);
+
+        jdk = RedisSerializer.java(getClass().getClassLoader());
+        json = new Jackson2JsonRedisSerializer<>(
+                JsonMapper.builder().findAndAddModules().build(), OrderWithItemsDto.class);
+        binary = new BinaryCacheValueSerializer(getClass().getClassLoader(), Integer.MAX_VALUE);
+        binaryLz4 = new BinaryCacheValueSerializer(getClass().getClassLoader(), 0);
+
+        System.out.printf("%nitems=%d bytes: jdk=%d json=%d binary=%d binary+lz4=%d%n", itemCount,
+                jdk.serialize(order).length, json.serialize(order).length,
+                binary.serialize(order).length, binaryLz4.serialize(order).length);
+    }
+
+    @Benchmark
+    public Object jdk() {
+        return jdk.deserialize(jdk.serialize(order));
+    }
+
+    @Benchmark
+    public Object json() {
+        return json.deserialize(json.serialize(order));
+    }
+
+    @Benchmark
+    public Object binary() {
+        return binary.deserialize(binary.serialize(order));
+    }
+
+    @Benchmark
+    public Object binaryLz4() {
+        return binaryLz4.deserialize(binaryLz4.serialize(order));
+    }
+
+    private static OrderWithItemsDto order(int itemCount) {
+        UUID orderId = UUID.randomUUID();
+        List<OrderItemDto> items = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new OrderItemDto(UUID.randomUUID(), orderId, UUID.randomUUID(),
+                    "Wireless mechanical keyboard " + i, new BigDecimal("129.99"), 1 + i % 3));
+        }
+        UserDto user = new UserDto(UUID.randomUUID(), "John", "Doe",
+                LocalDate.of(1990, 1, 1), "john.doe@example.com");
+        return new OrderWithItemsDto(orderId, user.id(), Status.PENDING, LocalDate.of(2025, 1, 1), user, items);
+    }
+}
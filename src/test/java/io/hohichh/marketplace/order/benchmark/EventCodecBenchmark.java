@@ -0,0 +1,97 @@
+package io.hohichh.marketplace.order.benchmark;
+
+import io.hohichh.marketplace.order.dto.event.OrderCreatedEvent;
+import io.hohichh.marketplace.order.dto.event.PaymentCreatedEvent;
+import io.hohichh.marketplace.order.kafka.AvroEventCodec;
+import io.hohichh.marketplace.order.kafka.AvroEventSerializer;
+import io.hohichh.marketplace.order.kafka.DualFormatEventDeserializer;
+import io.hohichh.marketplace.order.model.PaymentStatus;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+//Encode and decode of the kafka events with JsonSerializer/JsonDeserializer (type headers on)
+//and with the Avro format read through DualFormatEventDeserializer.
+//Payload sizes in bytes are printed once per trial.
+//Run: ./mvnw test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+//       -Dexec.args="-cp %classpath org.openjdk.jmh.Main EventCodecBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventCodecBenchmark {
+    private static final String TOPIC = "benchmark-events";
+
+    @Param({"order-created", "payment-created"})
+    private String eventType;
+
+    private Object event;
+
+    private JsonSerializer<Object> jsonSerializer;
+    private JsonDeserializer<Object> jsonDeserializer;
+    private AvroEventSerializer avroSerializer;
+    private DualFormatEventDeserializer dualDeserializer;
+
+    private byte[] json;
+    private RecordHeaders jsonHeaders;
+    private byte[] avro;
+
+    @Setup
+    public void setUp() {
+        event = switch (eventType) {
+            case "order-created" -> new OrderCreatedEvent(UUID.randomUUID().toString(),
+                    UUID.randomUUID().toString(), new BigDecimal("1249.97"));
+            case "payment-created" -> new PaymentCreatedEvent(UUID.randomUUID().toString(),
+                    UUID.randomUUID().toString(), UUID.randomUUID().toString(), PaymentStatus.SUCCEED,
+                    LocalDateTime.of(2025, 3, 1, 12, 30, 15));
+            default -> throw new IllegalArgumentException(eventType);
+        };
+
+        //type headers stay on the record, the same headers are decoded on every invocation
+        Map<String, Object> configs = Map.of(
+                JsonDeserializer.TRUSTED_PACKAGES, "io.hohichh.marketplace.order.dto.event",
+                JsonDeserializer.REMOVE_TYPE_INFO_HEADERS, false);
+        jsonSerializer = new JsonSerializer<>();
+        jsonDeserializer = new JsonDeserializer<>();
+        jsonDeserializer.configure(configs, false);
+        avroSerializer = new AvroEventSerializer(AvroEventCodec.fromClasspath());
+        dualDeserializer = new DualFormatEventDeserializer();
+        dualDeserializer.configure(configs, false);
+
+        jsonHeaders = new RecordHeaders();
+        json = jsonSerializer.serialize(TOPIC, jsonHeaders, event);
+        avro = avroSerializer.serialize(TOPIC, event);
+
+        System.out.printf("%n%s bytes: json=%d (+%d in type header) avro=%d%n", eventType, json.length,
+                jsonHeaders.lastHeader("__TypeId__").value().length, avro.length);
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() {
+        return jsonSerializer.serialize(TOPIC, new RecordHeaders(), event);
+    }
+
+    @Benchmark
+    public Object jsonDecode() {
+        return jsonDeserializer.deserialize(TOPIC, jsonHeaders, json);
+    }
+
+    @Benchmark
+    public byte[] avroEncode() {
+        return avroSerializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public Object avroDecode() {
+        return dualDeserializer.deserialize(TOPIC, avro);
+    }
+}
@@ -0,0 +1,80 @@
+package io.hohichh.marketplace.order.benchmark;
+
+import io.hohichh.marketplace.order.security.JwtAuthenticationFilter;
+import io.hohichh.marketplace.order.security.JwtValidator;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+//Authentication filter cost per request:
+//  legacyDoubleParse - previous behaviour, a fresh parser and a full verification for validate() and getClaims()
+//  filter            - current filter; with claimsCacheSize=0 every request is parsed once,
+//                      otherwise the same bearer token is verified once and then served from the cache
+//Run: ./mvnw test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+//       -Dexec.args="-cp %classpath org.openjdk.jmh.Main JwtFilterBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtFilterBenchmark {
+    private static final String SECRET = "benchmark-secret-key-that-is-long-enough-for-hs256";
+
+    @Param({"0", "10000"})
+    private long claimsCacheSize;
+
+    private final Clock clock = Clock.systemUTC();
+    private SecretKey key;
+    private String token;
+    private JwtAuthenticationFilter filter;
+
+    @Setup
+    public void setUp() {
+        key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        token = Jwts.builder()
+                .subject(UUID.randomUUID().toString())
+                .claim("role", "USER")
+                .issuedAt(new Date())
+                .expiration(Date.from(Instant.now().plusSeconds(3600)))
+                .signWith(key)
+                .compact();
+        filter = new JwtAuthenticationFilter(
+                new JwtValidator(SECRET, clock, claimsCacheSize, Duration.ofMinutes(5)));
+    }
+
+    @Benchmark
+    public Object legacyDoubleParse() {
+        Jwts.parser().verifyWith(key).clock(() -> Date.from(clock.instant())).build()
+                .parseSignedClaims(token);
+        Claims claims = Jwts.parser().verifyWith(key).clock(() -> Date.from(clock.instant())).build()
+                .parseSignedClaims(token)
+                .getPayload();
+        return claims.get("role", String.class);
+    }
+
+    @Benchmark
+    public Object filter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
@@ -0,0 +1,83 @@
+package io.hohichh.marketplace.order.benchmark;
+
+import io.hohichh.marketplace.order.config.KafkaProducerProperties;
+import io.hohichh.marketplace.order.config.ProducerProfile;
+import io.hohichh.marketplace.order.dto.event.OrderCreatedEvent;
+import io.hohichh.marketplace.order.kafka.OrderProducer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.testcontainers.kafka.KafkaContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+//Send throughput of OrderProducer for each producer profile against a broker container (needs docker).
+//Sends are asynchronous and the in-flight limit blocks the senders, so the score is the rate
+//the broker acknowledges, not the rate records are handed to the producer buffer.
+//Run: ./mvnw test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+//       -Dexec.args="-cp %classpath org.openjdk.jmh.Main OrderProducerBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(8)
+public class OrderProducerBenchmark {
+
+    @Param({"LATENCY", "BALANCED", "THROUGHPUT"})
+    private ProducerProfile profile;
+
+    @Param({"1000"})
+    private int maxInFlight;
+
+    private KafkaContainer broker;
+    private DefaultKafkaProducerFactory<String, Object> producerFactory;
+    private OrderProducer producer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        broker = new KafkaContainer(DockerImageName.parse("apache/kafka:3.8.0"));
+        broker.start();
+
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBootstrapServers());
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.putAll(profile.overrides());
+        producerFactory = new DefaultKafkaProducerFactory<>(config);
+
+        producer = new OrderProducer(new KafkaTemplate<>(producerFactory), new SimpleMeterRegistry(),
+                new KafkaProducerProperties(profile, maxInFlight, KafkaProducerProperties.Overflow.WAIT,
+                        Duration.ofSeconds(30)));
+    }
+
+    @TearDown(Level.Iteration)
+    public void flush() {
+        producer.flush();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        producerFactory.destroy();
+        broker.stop();
+    }
+
+    @Benchmark
+    public CompletableFuture<?> sendOrderCreatedEvent() {
+        return producer.sendOrderCreatedEvent(new OrderCreatedEvent(
+                UUID.randomUUID().toString(), UUID.randomUUID().toString(), BigDecimal.valueOf(4999, 2)));
+    }
+}
@@ -0,0 +1,118 @@
+package io.hohichh.marketplace.order.benchmark;
+
+import io.hohichh.marketplace.order.client.UserProfileLookup;
+import io.hohichh.marketplace.order.client.UserServiceClient;
+import io.hohichh.marketplace.order.dto.UserDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cloud.client.circuitbreaker.CircuitBreaker;
+import org.springframework.cloud.client.circuitbreaker.CircuitBreakerFactory;
+import org.springframework.cloud.client.circuitbreaker.ConfigBuilder;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.concurrent.locks.LockSupport;
+
+//Compares blocking on the user lookup after the repository work (old behaviour)
+//with starting it up-front. Sample mode reports p99 per benchmark.
+//Run: ./mvnw test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+//       -Dexec.args="-cp %classpath org.openjdk.jmh.Main UserEnrichmentBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(16)
+public class UserEnrichmentBenchmark {
+    private static final String TOKEN = "Bearer benchmark";
+    private static final UUID USER_ID = UUID.randomUUID();
+    private static final UserDto USER = new UserDto(USER_ID, "John", "Doe", LocalDate.of(1990, 1, 1), "john@test.com");
+
+    @Param({"20", "80"})
+    private long userServiceLatencyMs;
+
+    @Param({"30"})
+    private long repositoryLatencyMs;
+
+    @Param({"25"})
+    private long latencyBudgetMs;
+
+    private UserProfileLookup userLookup;
+
+    @Setup
+    public void setUp() {
+        UserServiceClient slowUserService = (token, id) -> {
+            pause(userServiceLatencyMs);
+            return USER;
+        };
+        //zero ttl and a fresh user id per call keep every lookup a real user-service call
+        userLookup = new UserProfileLookup(slowUserService, new PassThroughCircuitBreakerFactory(),
+                Clock.systemUTC(), new SimpleMeterRegistry(),
+                Duration.ofSeconds(10), Duration.ZERO, Duration.ofMinutes(1), 1_000);
+    }
+
+    @Benchmark
+    public UserDto sequentialLookup() {
+        pause(repositoryLatencyMs);
+        return userLookup.await(userLookup.lookupAsync(TOKEN, nextUserId()), null);
+    }
+
+    @Benchmark
+    public UserDto overlappedLookup() {
+        CompletableFuture<UserDto> lookup = userLookup.lookupAsync(TOKEN, nextUserId());
+        pause(repositoryLatencyMs);
+        return userLookup.await(lookup, null);
+    }
+
+    @Benchmark
+    public UserDto overlappedLookupWithBudget() {
+        CompletableFuture<UserDto> lookup = userLookup.lookupAsync(TOKEN, nextUserId());
+        pause(repositoryLatencyMs);
+        return userLookup.await(lookup, Duration.ofMillis(latencyBudgetMs));
+    }
+
+    private static UUID nextUserId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new UUID(random.nextLong(), random.nextLong());
+    }
+
+    private static void pause(long millis) {
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private static class PassThroughCircuitBreakerFactory
+            extends CircuitBreakerFactory<Object, ConfigBuilder<Object>> {
+
+        @Override
+        public CircuitBreaker create(String id) {
+            return new CircuitBreaker() {
+                @Override
+                public <T> T run(Supplier<T> toRun, Function<Throwable, T> fallback) {
+                    try {
+                        return toRun.get();
+                    } catch (RuntimeException e) {
+                        return fallback.apply(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        protected ConfigBuilder<Object> configBuilder(String id) {
+            return () -> null;
+        }
+
+        @Override
+        public void configureDefault(Function<String, Object> defaultConfiguration) {
+            //no configuration needed for the benchmark stub
+        }
+    }
+}
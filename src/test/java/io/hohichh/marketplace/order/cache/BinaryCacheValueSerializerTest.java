@@ -0,0 +1,107 @@
+package io.hohichh.marketplace.order.cache;
+
+import io.hohichh.marketplace.order.dto.OrderWithItemsDto;
+import io.hohichh.marketplace.order.dto.UserDto;
+import io.hohichh.marketplace.order.dto.item.OrderItemDto;
+import io.hohichh.marketplace.order.dto.product.ProductDto;
+import io.hohichh.marketplace.order.model.order.Status;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryCacheValueSerializerTest {
+
+    private final BinaryCacheValueSerializer serializer =
+            new BinaryCacheValueSerializer(getClass().getClassLoader(), 1024);
+
+    @Test
+    void roundTrip_orderInEnvelope_shouldBeEqualAndSmallerThanJdk() {
+        CacheEntry entry = new CacheEntry(order(3), 1_700_000_000_000L, 12);
+
+        byte[] bytes = serializer.serialize(entry);
+
+        assertEquals(entry, serializer.deserialize(bytes));
+        assertTrue(bytes.length < RedisSerializer.java().serialize(entry).length);
+    }
+
+    @Test
+    void roundTrip_largeOrder_shouldBeCompressed() {
+        OrderWithItemsDto order = order(200);
+        BinaryCacheValueSerializer uncompressed =
+                new BinaryCacheValueSerializer(getClass().getClassLoader(), Integer.MAX_VALUE);
+
+        byte[] bytes = serializer.serialize(order);
+
+        assertEquals(order, serializer.deserialize(bytes));
+        assertTrue(bytes.length < uncompressed.serialize(order).length);
+    }
+
+    @Test
+    void roundTrip_productAndOtherTypes() {
+        ProductDto product = new ProductDto(UUID.randomUUID(), "Keyboard", new BigDecimal("49.99"));
+
+        assertEquals(product, serializer.deserialize(serializer.serialize(product)));
+        assertEquals("IN_FLIGHT", serializer.deserialize(serializer.serialize("IN_FLIGHT")));
+        assertNull(serializer.deserialize(serializer.serialize(null)));
+    }
+
+    @Test
+    void deserialize_jdkSerializedValue_shouldStillBeReadable() {
+        ProductDto product = new ProductDto(UUID.randomUUID(), "Keyboard", BigDecimal.TEN);
+
+        byte[] legacy = RedisSerializer.java().serialize(product);
+
+        assertEquals(product, serializer.deserialize(legacy));
+    }
+
+    @Test
+    void deserialize_unknownFormatVersion_shouldBeTreatedAsMiss() {
+        byte[] bytes = serializer.serialize(new ProductDto(UUID.randomUUID(), "Keyboard", BigDecimal.TEN));
+        bytes[1] = 99;
+
+        assertNull(serializer.deserialize(bytes));
+    }
+
+    @Test
+    void deserialize_unknownOrderStatus_shouldFailWithSerializationException() {
+        byte[] bytes = serializer.serialize(order(1));
+        //same length, so the rest of the layout stays intact
+        replace(bytes, "PENDING", "UNKNOWN");
+
+        assertThrows(SerializationException.class, () -> serializer.deserialize(bytes));
+    }
+
+    private static void replace(byte[] bytes, String target, String replacement) {
+        byte[] from = target.getBytes(StandardCharsets.UTF_8);
+        byte[] to = replacement.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i <= bytes.length - from.length; i++) {
+            if (Arrays.equals(bytes, i, i + from.length, from, 0, from.length)) {
+                System.arraycopy(to, 0, bytes, i, to.length);
+                return;
+            }
+        }
+        fail("value does not contain " + target);
+    }
+
+    private static OrderWithItemsDto order(int itemCount) {
+        UUID orderId = UUID.randomUUID();
+        List<OrderItemDto> items = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new OrderItemDto(UUID.randomUUID(), orderId, UUID.randomUUID(),
+                    "Product " + i, new BigDecimal("19.99"), i + 1));
+        }
+        UserDto user = new UserDto(UUID.randomUUID(), "John", "Doe",
+                LocalDate.of(1990, 1, 1), "john@example.com");
+        return new OrderWithItemsDto(orderId, user.id(), Status.PENDING, LocalDate.of(2025, 1, 1), user, items);
+    }
+}
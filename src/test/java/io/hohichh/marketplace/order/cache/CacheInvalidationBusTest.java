@@ -0,0 +1,46 @@
+package io.hohichh.marketplace.order.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CacheInvalidationBusTest {
+
+    private StringRedisTemplate redisTemplate;
+    private CacheInvalidationBus bus;
+    private List<String> invalidated;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        bus = new CacheInvalidationBus(redisTemplate, "invalidation");
+        invalidated = new ArrayList<>();
+        bus.addListener((cache, key) -> invalidated.add(cache + "::" + key));
+    }
+
+    @Test
+    void invalidate_shouldDropLocalKeys_andPublishOneMessagePerBatch() {
+        bus.invalidate("products", List.of("a", "b"));
+
+        assertEquals(List.of("products::a", "products::b"), invalidated);
+        verify(redisTemplate, times(1)).convertAndSend(eq("invalidation"), anyString());
+    }
+
+    @Test
+    void onMessage_fromOtherNode_shouldInvalidateEveryKeyOfTheBatch() {
+        String message = "other-node|products|a\nb";
+
+        bus.onMessage(new DefaultMessage("invalidation".getBytes(StandardCharsets.UTF_8),
+                message.getBytes(StandardCharsets.UTF_8)), null);
+
+        assertEquals(List.of("products::a", "products::b"), invalidated);
+    }
+}
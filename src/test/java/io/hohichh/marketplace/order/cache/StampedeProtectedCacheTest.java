@@ -0,0 +1,114 @@
+package io.hohichh.marketplace.order.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StampedeProtectedCacheTest {
+
+    private final ConcurrentMapCache delegate = new ConcurrentMapCache("products");
+
+    @Test
+    void get_concurrentMisses_shouldLoadOnce() throws Exception {
+        StampedeProtectedCache cache = new StampedeProtectedCache(delegate, Duration.ofMinutes(10), 1.0, Duration.ZERO);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8; i++) {
+                results.add(CompletableFuture.supplyAsync(() -> cache.get("key", () -> {
+                    loads.incrementAndGet();
+                    release.await(5, TimeUnit.SECONDS);
+                    return "value";
+                }), executor));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            for (CompletableFuture<String> result : results) {
+                assertEquals("value", result.get(5, TimeUnit.SECONDS));
+            }
+        }
+
+        assertEquals(1, loads.get());
+        assertInstanceOf(CacheEntry.class, delegate.get("key").get());
+    }
+
+    @Test
+    void get_whenLoaderFails_shouldWrapCauseAndNotCache() {
+        StampedeProtectedCache cache = new StampedeProtectedCache(delegate, Duration.ofMinutes(10), 1.0, Duration.ZERO);
+        IllegalStateException failure = new IllegalStateException("db down");
+
+        Cache.ValueRetrievalException ex = assertThrows(Cache.ValueRetrievalException.class,
+                () -> cache.get("key", () -> { throw failure; }));
+
+        assertSame(failure, ex.getCause());
+        assertNull(delegate.get("key"));
+    }
+
+    @Test
+    void get_whenEntryIsAboutToExpire_shouldRefreshEarly() {
+        StampedeProtectedCache cache = new StampedeProtectedCache(delegate, Duration.ofMinutes(10), 1.0, Duration.ZERO);
+        delegate.put("key", new CacheEntry("old", System.currentTimeMillis() + 10, 3_600_000));
+
+        assertEquals("new", cache.get("key", () -> "new"));
+        assertEquals("new", cache.get("key", String.class));
+    }
+
+    @Test
+    void get_whenEarlyRefreshFails_shouldServeCurrentValue() {
+        StampedeProtectedCache cache = new StampedeProtectedCache(delegate, Duration.ofMinutes(10), 1.0, Duration.ZERO);
+        delegate.put("key", new CacheEntry("old", System.currentTimeMillis() + 10, 3_600_000));
+
+        assertEquals("old", cache.get("key", () -> { throw new IllegalStateException("db down"); }));
+    }
+
+    @Test
+    void get_whenEntryWasWrittenWithoutComputeTime_shouldStillRefreshEarly() {
+        StampedeProtectedCache cache = new StampedeProtectedCache(delegate, Duration.ofMinutes(10), 1.0,
+                Duration.ofHours(1));
+        //bulk writes store computeMillis 0, only the minimum delta makes them refresh before expiry
+        delegate.put("key", new CacheEntry("old", System.currentTimeMillis() + 10, 0));
+
+        assertEquals("new", cache.get("key", () -> "new"));
+    }
+
+    @Test
+    void get_whenLoaderReturnsNull_shouldNotStoreIt() {
+        StampedeProtectedCache cache = new StampedeProtectedCache(delegate, Duration.ofMinutes(10), 1.0, Duration.ZERO);
+
+        assertNull(cache.get("key", () -> null));
+        assertNull(delegate.get("key"));
+    }
+
+    @Test
+    void put_nullValue_shouldEvictInsteadOfStoringEnvelope() {
+        StampedeProtectedCache cache = new StampedeProtectedCache(delegate, Duration.ofMinutes(10), 1.0, Duration.ZERO);
+        cache.put("key", "cached");
+
+        cache.put("key", null);
+
+        assertNull(delegate.get("key"));
+    }
+
+    @Test
+    void get_freshEntry_shouldNotCallLoader() {
+        StampedeProtectedCache cache = new StampedeProtectedCache(delegate, Duration.ofMinutes(10), 1.0, Duration.ZERO);
+        cache.put("key", "cached");
+
+        assertEquals("cached", cache.get("key", () -> fail("loader must not be called")));
+    }
+}
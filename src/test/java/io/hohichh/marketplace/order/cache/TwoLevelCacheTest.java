@@ -0,0 +1,112 @@
+package io.hohichh.marketplace.order.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TwoLevelCacheTest {
+
+    private ConcurrentMapCache remote;
+    private CacheInvalidationBus invalidationBus;
+    private MeterRegistry meterRegistry;
+    private TwoLevelCache cache;
+
+    @BeforeEach
+    void setUp() {
+        remote = spy(new ConcurrentMapCache("products"));
+        invalidationBus = mock(CacheInvalidationBus.class);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new TwoLevelCache(remote, Caffeine.newBuilder().maximumSize(100).build(),
+                invalidationBus, meterRegistry);
+    }
+
+    @Test
+    void get_secondRead_shouldBeServedFromLocalLevel() {
+        UUID key = UUID.randomUUID();
+        remote.put(key, "value");
+
+        assertEquals("value", cache.get(key, String.class));
+        assertEquals("value", cache.get(key, String.class));
+
+        verify(remote, times(1)).get(key);
+        assertEquals(0.5, meterRegistry.get("cache.level.hit.ratio")
+                .tag("level", "l1").gauge().value());
+        assertEquals(1.0, meterRegistry.get("cache.level.hit.ratio")
+                .tag("level", "l2").gauge().value());
+    }
+
+    @Test
+    void evict_shouldDropBothLevels_andPublishInvalidation() {
+        UUID key = UUID.randomUUID();
+        cache.put(key, "value");
+
+        cache.evict(key);
+
+        assertNull(cache.get(key));
+        verify(invalidationBus, times(2)).publish("products", key.toString());
+    }
+
+    @Test
+    void invalidateLocal_shouldMakeNextReadGoToRemoteLevel() {
+        UUID key = UUID.randomUUID();
+        cache.put(key, "old");
+        remote.put(key, "new");
+
+        assertEquals("old", cache.get(key, String.class));
+        cache.invalidateLocal(key.toString());
+
+        assertEquals("new", cache.get(key, String.class));
+    }
+
+    @Test
+    void get_unreadableRemoteEntry_shouldBeMiss_andBeDropped() {
+        UUID key = UUID.randomUUID();
+        remote.put(key, "value");
+        doThrow(new SerializationException("Unknown order status")).when(remote).get(key);
+
+        assertEquals("loaded", cache.get(key, () -> "loaded"));
+        verify(remote).evict(key);
+    }
+
+    @Test
+    void get_withLoader_shouldFillBothLevels_withoutPublishingInvalidation() {
+        UUID key = UUID.randomUUID();
+
+        assertEquals("loaded", cache.get(key, () -> "loaded"));
+        cache.putIfAbsent(UUID.randomUUID(), "filled");
+
+        assertEquals("loaded", remote.get(key, String.class));
+        verifyNoInteractions(invalidationBus);
+    }
+
+    @Test
+    void put_shouldPublishInvalidation_forReplacedValue() {
+        UUID key = UUID.randomUUID();
+        cache.get(key, () -> "old");
+
+        cache.put(key, "new");
+
+        assertEquals("new", cache.get(key, String.class));
+        verify(invalidationBus).publish("products", key.toString());
+    }
+
+    @Test
+    void get_withLoader_shouldWrapLoaderFailure() {
+        IllegalStateException failure = new IllegalStateException("db down");
+
+        Cache.ValueRetrievalException ex = assertThrows(Cache.ValueRetrievalException.class,
+                () -> cache.get("key", () -> { throw failure; }));
+
+        assertSame(failure, ex.getCause());
+    }
+}
@@ -0,0 +1,122 @@
+package io.hohichh.marketplace.order.client;
+
+import io.hohichh.marketplace.order.dto.UserDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cloud.client.circuitbreaker.CircuitBreaker;
+import org.springframework.cloud.client.circuitbreaker.CircuitBreakerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserProfileLookupTest {
+
+    @Mock
+    private UserServiceClient userClient;
+    @Mock
+    private CircuitBreakerFactory circuitBreakerFactory;
+    @Mock
+    private CircuitBreaker circuitBreaker;
+    @Mock
+    private Clock clock;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final String token = "Bearer test-token-123";
+    private final UUID userId = UUID.randomUUID();
+    private final UserDto user = new UserDto(userId, "John", "Doe", LocalDate.of(1990, 1, 1), "john@test.com");
+    private final Instant now = Instant.parse("2025-01-01T10:00:00Z");
+
+    private UserProfileLookup userLookup;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(circuitBreakerFactory.create(any())).thenReturn(circuitBreaker);
+        lenient().when(circuitBreaker.run(any(), any())).thenAnswer(invocation -> {
+            Supplier<Object> supplier = invocation.getArgument(0);
+            try {
+                return supplier.get();
+            } catch (Exception e) {
+                Function<Throwable, Object> fallback = invocation.getArgument(1);
+                return fallback.apply(e);
+            }
+        });
+        lenient().when(clock.instant()).thenReturn(now);
+
+        userLookup = new UserProfileLookup(userClient, circuitBreakerFactory, clock, meterRegistry,
+                Duration.ofSeconds(10), Duration.ofSeconds(60), Duration.ofMinutes(30), 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userLookup.shutdown();
+    }
+
+    @Test
+    void lookupAsync_shouldServeFreshProfileFromCache() {
+        when(userClient.getUserById(token, userId)).thenReturn(user);
+
+        assertEquals(user, userLookup.lookupAsync(token, userId).join());
+        assertEquals(user, userLookup.lookupAsync(token, userId).join());
+
+        verify(userClient, times(1)).getUserById(token, userId);
+        assertEquals(1.0, requests("hit"));
+        assertEquals(1.0, requests("miss"));
+    }
+
+    @Test
+    void lookupAsync_shouldCoalesceConcurrentMisses() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        when(userClient.getUserById(token, userId)).thenAnswer(invocation -> {
+            release.await();
+            return user;
+        });
+
+        CompletableFuture<UserDto> first = userLookup.lookupAsync(token, userId);
+        CompletableFuture<UserDto> second = userLookup.lookupAsync(token, userId);
+        release.countDown();
+
+        assertSame(first, second);
+        assertEquals(user, second.join());
+        verify(userClient, times(1)).getUserById(token, userId);
+        assertEquals(1.0, requests("coalesced"));
+    }
+
+    @Test
+    void lookupAsync_shouldServeStaleProfile_whenUserServiceFails() {
+        when(userClient.getUserById(token, userId))
+                .thenReturn(user)
+                .thenThrow(new IllegalStateException("circuit breaker is open"));
+
+        userLookup.lookupAsync(token, userId).join();
+        when(clock.instant()).thenReturn(now.plus(Duration.ofMinutes(5)));
+
+        assertEquals(user, userLookup.lookupAsync(token, userId).join());
+        assertEquals(1.0, requests("stale"));
+    }
+
+    @Test
+    void await_shouldReturnNull_whenBudgetIsExceeded() {
+        assertNull(userLookup.await(new CompletableFuture<>(), Duration.ofMillis(10)));
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("user.profile.cache.requests").tag("result", result).counter().count();
+    }
+}
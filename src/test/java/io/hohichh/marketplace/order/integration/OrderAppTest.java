@@ -1,5 +1,6 @@
 package io.hohichh.marketplace.order.integration;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.hohichh.marketplace.order.client.UserServiceClient;
 import io.hohichh.marketplace.order.dto.*;
 import io.hohichh.marketplace.order.dto.item.NewOrderItemDto;
@@ -9,17 +10,27 @@ import io.hohichh.marketplace.order.model.order.Order;
 import io.hohichh.marketplace.order.model.order.Status;
 import io.hohichh.marketplace.order.repository.OrderRepository;
 import io.hohichh.marketplace.order.repository.ProductRepository;
+import io.hohichh.marketplace.order.security.OrderSecurity;
+import io.hohichh.marketplace.order.service.OrderService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.TestingAuthenticationToken;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -31,6 +42,16 @@ class OrderAppTest extends AbstractApplicationTest {
     private ProductRepository productRepository;
     @Autowired
     private OrderRepository orderRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private OrderSecurity orderSecurity;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
 
     @MockitoBean
     private UserServiceClient userServiceClient;
@@ -85,6 +106,72 @@ class OrderAppTest extends AbstractApplicationTest {
     }
 
 
+    @Test
+    void createOrder_shouldReturnStoredOrder_whenIdempotencyKeyIsRepeated() {
+        // Arrange
+        List<NewOrderItemDto> items = List.of(new NewOrderItemDto(storedProduct.getId(), 1));
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(userToken);
+        headers.set("Idempotency-Key", UUID.randomUUID().toString());
+        HttpEntity<List<NewOrderItemDto>> request = new HttpEntity<>(items, headers);
+
+        // Act
+        ResponseEntity<OrderWithItemsDto> first = restTemplate.postForEntity(
+                "/v1/orders", request, OrderWithItemsDto.class);
+        ResponseEntity<OrderWithItemsDto> retry = restTemplate.postForEntity(
+                "/v1/orders", request, OrderWithItemsDto.class);
+
+        // Assert
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(retry.getBody().id()).isEqualTo(first.getBody().id());
+        assertThat(orderRepository.findOrdersByUserId(userId)).hasSize(1);
+    }
+
+    @Test
+    void createOrders_shouldReportResultPerOrder_whenAdmin() {
+        // Arrange
+        String adminToken = generateToken(UUID.randomUUID(), "ADMIN");
+        List<NewOrderDto> orders = List.of(
+                new NewOrderDto(userId, List.of(new NewOrderItemDto(storedProduct.getId(), 2))),
+                new NewOrderDto(userId, List.of(new NewOrderItemDto(UUID.randomUUID(), 1)))
+        );
+
+        // Act
+        ResponseEntity<List<OrderBatchResultDto>> response = restTemplate.exchange(
+                "/v1/orders/batch",
+                HttpMethod.POST,
+                getAuthHeaders(adminToken, orders),
+                new org.springframework.core.ParameterizedTypeReference<List<OrderBatchResultDto>>() {}
+        );
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).hasSize(2);
+        assertThat(response.getBody().get(0).orderId()).isNotNull();
+        assertThat(response.getBody().get(1).error()).contains("not found");
+        assertThat(orderRepository.findById(response.getBody().get(0).orderId())).isPresent();
+    }
+
+    @Test
+    void createOrders_shouldThrow403_whenUser() {
+        // Arrange
+        List<NewOrderDto> orders = List.of(
+                new NewOrderDto(userId, List.of(new NewOrderItemDto(storedProduct.getId(), 1))));
+
+        // Act
+        ResponseEntity<String> response = restTemplate.exchange(
+                "/v1/orders/batch",
+                HttpMethod.POST,
+                getAuthHeaders(userToken, orders),
+                String.class
+        );
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+    }
+
     @Test
     void updateOrderStatus_shouldSucceed_whenAdmin() {
         // Arrange
@@ -103,7 +190,9 @@ class OrderAppTest extends AbstractApplicationTest {
         // Assert
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody().status()).isEqualTo(Status.SHIPPED);
-        assertThat(response.getBody().userDto()).isNull();
+        //profile was cached by the owner's create request, so admins get it without a user-service call
+        assertThat(response.getBody().userDto()).isNotNull();
+        assertThat(response.getBody().userDto().name()).isEqualTo("John");
         assertThat(orderRepository.findById(orderId).get().getStatus()).isEqualTo(Status.SHIPPED);
     }
 
@@ -308,6 +397,35 @@ class OrderAppTest extends AbstractApplicationTest {
         assertThat(response.getBody().get(0).userId()).isEqualTo(userId);
     }
 
+    @Test
+    void getOrdersByUserId_shouldReturnCursorPages_WhenSizeIsGiven() {
+        // Arrange
+        UUID order1 = createOrderForUser(userToken);
+        UUID order2 = createOrderForUser(userToken);
+
+        // Act
+        ResponseEntity<CursorPageDto<OrderDto>> firstPage = restTemplate.exchange(
+                "/v1/orders?user-id=" + userId + "&size=1",
+                HttpMethod.GET,
+                getAuthHeaders(userToken),
+                new org.springframework.core.ParameterizedTypeReference<CursorPageDto<OrderDto>>() {}
+        );
+        ResponseEntity<CursorPageDto<OrderDto>> secondPage = restTemplate.exchange(
+                "/v1/orders?user-id=" + userId + "&size=1&cursor=" + firstPage.getBody().nextCursor(),
+                HttpMethod.GET,
+                getAuthHeaders(userToken),
+                new org.springframework.core.ParameterizedTypeReference<CursorPageDto<OrderDto>>() {}
+        );
+
+        // Assert
+        assertThat(firstPage.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(firstPage.getBody().content()).hasSize(1);
+        assertThat(secondPage.getBody().content()).hasSize(1);
+        assertThat(secondPage.getBody().nextCursor()).isNull();
+        assertThat(List.of(firstPage.getBody().content().get(0).id(), secondPage.getBody().content().get(0).id()))
+                .containsExactlyInAnyOrder(order1, order2);
+    }
+
     @Test
     void getOrdersByUserId_shouldSucceed_WhenAdmin() {
         // Arrange
@@ -390,6 +508,222 @@ class OrderAppTest extends AbstractApplicationTest {
         assertThat(response.getBody().getContent().get(0).id()).isEqualTo(orderId);
     }
 
+    @Test
+    void searchOrders_shouldFilterByUserAndDateRange_WhenAdmin() {
+        // Arrange
+        UUID orderId = createOrderForUser(userToken);
+        String adminToken = generateToken(UUID.randomUUID(), "ADMIN");
+
+        // Act
+        ResponseEntity<TestPage<OrderDto>> matching = restTemplate.exchange(
+                "/v1/orders?user-ids=" + userId + "&created-from=2025-01-01&created-to=2025-01-01",
+                HttpMethod.GET,
+                getAuthHeaders(adminToken),
+                new org.springframework.core.ParameterizedTypeReference<TestPage<OrderDto>>() {}
+        );
+        ResponseEntity<TestPage<OrderDto>> outOfRange = restTemplate.exchange(
+                "/v1/orders?user-ids=" + userId + "&created-from=2025-01-02",
+                HttpMethod.GET,
+                getAuthHeaders(adminToken),
+                new org.springframework.core.ParameterizedTypeReference<TestPage<OrderDto>>() {}
+        );
+
+        // Assert
+        assertThat(matching.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(matching.getBody().getContent()).extracting(OrderDto::id).containsExactly(orderId);
+        assertThat(outOfRange.getBody().getTotalElements()).isZero();
+    }
+
+    @Test
+    void searchOrders_shouldSupportEstimatedAndNoCount_WhenAdmin() {
+        // Arrange
+        createOrderForUser(userToken);
+        createOrderForUser(userToken);
+        createOrderForUser(userToken);
+        String adminToken = generateToken(UUID.randomUUID(), "ADMIN");
+
+        // Act
+        ResponseEntity<TestPage<OrderDto>> estimated = restTemplate.exchange(
+                "/v1/orders?size=1&count=ESTIMATED",
+                HttpMethod.GET,
+                getAuthHeaders(adminToken),
+                new org.springframework.core.ParameterizedTypeReference<TestPage<OrderDto>>() {}
+        );
+        ResponseEntity<String> slice = restTemplate.exchange(
+                "/v1/orders?size=1&count=NONE",
+                HttpMethod.GET,
+                getAuthHeaders(adminToken),
+                String.class
+        );
+
+        // Assert
+        assertThat(estimated.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(estimated.getBody().getContent()).hasSize(1);
+        assertThat(estimated.getBody().getTotalElements()).isGreaterThanOrEqualTo(2);
+        assertThat(slice.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(slice.getBody()).contains("\"last\":false").doesNotContain("totalElements");
+    }
+
+    @Test
+    void exportOrders_shouldStreamOneOrderPerLine_WhenAdmin() throws Exception {
+        // Arrange
+        UUID order1 = createOrderForUser(userToken);
+        UUID order2 = createOrderForUser(userToken);
+        String adminToken = generateToken(UUID.randomUUID(), "ADMIN");
+
+        // Act
+        ResponseEntity<String> response = restTemplate.exchange(
+                "/v1/orders/export?include-items=true",
+                HttpMethod.GET,
+                getAuthHeaders(adminToken),
+                String.class
+        );
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_NDJSON);
+        List<OrderExportDto> lines = new ArrayList<>();
+        for (String line : response.getBody().split("\n")) {
+            lines.add(objectMapper.readValue(line, OrderExportDto.class));
+        }
+        assertThat(lines).extracting(OrderExportDto::id).containsExactlyInAnyOrder(order1, order2);
+        assertThat(lines).allSatisfy(line -> assertThat(line.orderItems()).hasSize(1));
+    }
+
+    @Test
+    void exportOrders_shouldReturn403_WhenUser() {
+        ResponseEntity<String> response = restTemplate.exchange(
+                "/v1/orders/export",
+                HttpMethod.GET,
+                getAuthHeaders(userToken),
+                String.class
+        );
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+    }
+
+    @Test
+    void updateOrderStatusesSystem_shouldSkipCancelledOrders_andEvictCachedOrders() {
+        // Arrange
+        UUID pendingOrder = createOrderForUser(userToken);
+        UUID cancelledOrder = createOrderForUser(userToken);
+        orderService.updateOrderStatusSystem(cancelledOrder, Status.CANCELLED);
+        restTemplate.exchange("/v1/orders/" + pendingOrder, HttpMethod.GET,
+                getAuthHeaders(userToken), OrderWithItemsDto.class);
+
+        // Act
+        int updated = orderService.updateOrderStatusesSystem(Map.of(
+                pendingOrder, Status.PROCESSING,
+                cancelledOrder, Status.PROCESSING));
+        ResponseEntity<OrderWithItemsDto> response = restTemplate.exchange("/v1/orders/" + pendingOrder,
+                HttpMethod.GET, getAuthHeaders(userToken), OrderWithItemsDto.class);
+
+        // Assert
+        assertThat(updated).isEqualTo(1);
+        assertThat(response.getBody().status()).isEqualTo(Status.PROCESSING);
+        assertThat(orderRepository.findById(cancelledOrder).get().getStatus()).isEqualTo(Status.CANCELLED);
+    }
+
+    @Test
+    void isOrderOwner_shouldAnswerRepeatedChecks_fromOrderOwnersCache() {
+        // Arrange
+        UUID orderId = createOrderForUser(userToken);
+        TestingAuthenticationToken owner = new TestingAuthenticationToken(userId.toString(), null);
+        TestingAuthenticationToken stranger = new TestingAuthenticationToken(UUID.randomUUID().toString(), null);
+
+        // Act
+        boolean firstCheck = orderSecurity.isOrderOwner(orderId, owner);
+        //bypasses the service, so only a cache hit still sees the old owner
+        jdbcTemplate.update("UPDATE orders SET user_id = ? WHERE id = ?", UUID.randomUUID(), orderId);
+        boolean cachedCheck = orderSecurity.isOrderOwner(orderId, owner);
+
+        // Assert
+        assertThat(firstCheck).isTrue();
+        assertThat(cachedCheck).isTrue();
+        assertThat(orderSecurity.isOrderOwner(orderId, stranger)).isFalse();
+        assertThat(orderSecurity.isOrderOwner(UUID.randomUUID(), owner)).isFalse();
+        assertThat(cacheManager.getCache("orderOwners").get(orderId)).isNotNull();
+    }
+
+    @Test
+    void deleteOrder_shouldEvictCachedOwner() {
+        // Arrange
+        UUID orderId = createOrderForUser(userToken);
+        orderSecurity.isOrderOwner(orderId, new TestingAuthenticationToken(userId.toString(), null));
+        assertThat(cacheManager.getCache("orderOwners").get(orderId)).isNotNull();
+
+        // Act
+        restTemplate.exchange("/v1/orders/" + orderId, HttpMethod.DELETE,
+                getAuthHeaders(generateToken(UUID.randomUUID(), "ADMIN")), Void.class);
+
+        // Assert
+        assertThat(cacheManager.getCache("orderOwners").get(orderId)).isNull();
+        assertThat(orderSecurity.isOrderOwner(orderId, new TestingAuthenticationToken(userId.toString(), null))).isFalse();
+    }
+
+    @Test
+    void updateOrderStatus_shouldEvictCachedOwner() {
+        // Arrange
+        UUID orderId = createOrderForUser(userToken);
+        orderSecurity.isOrderOwner(orderId, new TestingAuthenticationToken(userId.toString(), null));
+        assertThat(cacheManager.getCache("orderOwners").get(orderId)).isNotNull();
+
+        // Act
+        restTemplate.exchange("/v1/orders/" + orderId, HttpMethod.PATCH,
+                getAuthHeaders(generateToken(UUID.randomUUID(), "ADMIN"), new NewStatusOrderDto(Status.SHIPPED)),
+                OrderWithItemsDto.class);
+
+        // Assert
+        assertThat(cacheManager.getCache("orderOwners").get(orderId)).isNull();
+    }
+
+    @Test
+    void scrollOrders_shouldWalkAllPages_WhenAdmin() {
+        // Arrange
+        UUID order1 = createOrderForUser(userToken);
+        UUID order2 = createOrderForUser(userToken);
+        UUID order3 = createOrderForUser(userToken);
+        String adminToken = generateToken(UUID.randomUUID(), "ADMIN");
+
+        // Act
+        ResponseEntity<CursorPageDto<OrderDto>> firstPage = restTemplate.exchange(
+                "/v1/orders/scroll?size=2",
+                HttpMethod.GET,
+                getAuthHeaders(adminToken),
+                new org.springframework.core.ParameterizedTypeReference<CursorPageDto<OrderDto>>() {}
+        );
+        ResponseEntity<CursorPageDto<OrderDto>> secondPage = restTemplate.exchange(
+                "/v1/orders/scroll?size=2&cursor=" + firstPage.getBody().nextCursor(),
+                HttpMethod.GET,
+                getAuthHeaders(adminToken),
+                new org.springframework.core.ParameterizedTypeReference<CursorPageDto<OrderDto>>() {}
+        );
+
+        // Assert
+        assertThat(firstPage.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(firstPage.getBody().content()).hasSize(2);
+        assertThat(firstPage.getBody().nextCursor()).isNotNull();
+        assertThat(secondPage.getBody().content()).hasSize(1);
+        assertThat(secondPage.getBody().nextCursor()).isNull();
+        assertThat(List.of(firstPage.getBody().content(), secondPage.getBody().content()))
+                .flatExtracting(page -> page.stream().map(OrderDto::id).toList())
+                .containsExactlyInAnyOrder(order1, order2, order3);
+    }
+
+    @Test
+    void scrollOrders_shouldReturn400_WhenCursorIsMalformed() {
+        String adminToken = generateToken(UUID.randomUUID(), "ADMIN");
+
+        ResponseEntity<String> response = restTemplate.exchange(
+                "/v1/orders/scroll?cursor=broken",
+                HttpMethod.GET,
+                getAuthHeaders(adminToken),
+                String.class
+        );
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
     @Test
     void searchOrders_shouldThrow403_WhenUser() {
         // Act
@@ -0,0 +1,133 @@
+package io.hohichh.marketplace.order.integration;
+
+import io.hohichh.marketplace.order.dto.OrderSearchFilter;
+import io.hohichh.marketplace.order.model.order.Status;
+import io.hohichh.marketplace.order.repository.OrderRepository;
+import io.hohichh.marketplace.order.repository.OrderSpecifications;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//NOTE: runs on the Liquibase schema so the plans see the real indexes.
+//EXPLAIN (GENERIC_PLAN) plans the captured statement with its parameters unbound,
+//which is how the planner sees a reused prepared statement.
+@TestPropertySource(properties = {
+        "spring.liquibase.enabled=true",
+        "spring.liquibase.change-log=classpath:db/changelog/db.changelog-master.xml",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "io.hohichh.marketplace.order.integration.OrderSearchPlanAppTest$CapturingStatementInspector"
+})
+class OrderSearchPlanAppTest extends AbstractApplicationTest {
+
+    private static final Sort SEEK_ORDER = Sort.by(Sort.Direction.DESC, "creationDate", "id");
+    private static final List<UUID> IDS = List.of(UUID.randomUUID(), UUID.randomUUID());
+    private static final List<Status> STATUSES = List.of(Status.PENDING, Status.PROCESSING);
+    private static final List<UUID> USER_IDS = List.of(UUID.randomUUID());
+    private static final LocalDate FROM = LocalDate.of(2025, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2025, 1, 31);
+
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    static Stream<Arguments> filterCombinations() {
+        return Stream.of(
+                Arguments.of(new OrderSearchFilter(null, null, null, null, null), "idx_orders_creation_date_id"),
+                Arguments.of(new OrderSearchFilter(IDS, null, null, null, null), "orders_pkey"),
+                Arguments.of(new OrderSearchFilter(null, STATUSES, null, null, null), "idx_orders_status_creation_date_id"),
+                Arguments.of(new OrderSearchFilter(null, null, USER_IDS, null, null), "idx_orders_user_id_creation_date_id"),
+                Arguments.of(new OrderSearchFilter(null, null, null, FROM, TO), "idx_orders_creation_date_id"),
+                Arguments.of(new OrderSearchFilter(null, null, null, FROM, null), "idx_orders_creation_date_id"),
+                Arguments.of(new OrderSearchFilter(null, STATUSES, null, FROM, TO), "idx_orders_status_creation_date_id"),
+                Arguments.of(new OrderSearchFilter(null, null, USER_IDS, FROM, TO), "idx_orders_user_id_creation_date_id"),
+                Arguments.of(new OrderSearchFilter(IDS, STATUSES, null, null, null), null),
+                Arguments.of(new OrderSearchFilter(null, STATUSES, USER_IDS, null, null), null),
+                Arguments.of(new OrderSearchFilter(IDS, STATUSES, USER_IDS, FROM, TO), null)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("filterCombinations")
+    void searchQuery_shouldUseIndex_forEachFilterCombination(OrderSearchFilter filter, String expectedIndex) {
+        CapturingStatementInspector.clear();
+        orderRepository.findBy(OrderSpecifications.matching(filter), query -> query
+                .sortBy(SEEK_ORDER)
+                .limit(21)
+                .all());
+        String sql = CapturingStatementInspector.lastSelectFrom("orders");
+
+        assertThat(sql.toLowerCase()).doesNotContain(" is null");
+
+        String plan = explainGenericPlan(sql);
+
+        assertThat(plan).doesNotContain("Seq Scan");
+        assertThat(plan).containsPattern("Index (Only )?Scan|Bitmap Index Scan");
+        if (expectedIndex != null) {
+            assertThat(plan).contains(expectedIndex);
+        }
+    }
+
+    //the planner would pick a sequential scan on an almost empty table anyway,
+    //so it is switched off to see which indexes the predicates can use at all
+    private String explainGenericPlan(String sql) {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            List<String> rows = jdbcTemplate.queryForList(
+                    "EXPLAIN (GENERIC_PLAN) " + toPositionalParameters(sql), String.class);
+            return String.join("\n", rows);
+        });
+    }
+
+    //JDBC placeholders to the $n form understood by EXPLAIN
+    private static String toPositionalParameters(String sql) {
+        StringBuilder result = new StringBuilder(sql.length() + 16);
+        int position = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                result.append('$').append(++position);
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    public static class CapturingStatementInspector implements StatementInspector {
+        private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+
+        static void clear() {
+            STATEMENTS.clear();
+        }
+
+        static String lastSelectFrom(String table) {
+            return STATEMENTS.reversed().stream()
+                    .filter(sql -> sql.startsWith("select") && sql.contains(" from " + table + " "))
+                    .findFirst()
+                    .orElseThrow();
+        }
+    }
+}
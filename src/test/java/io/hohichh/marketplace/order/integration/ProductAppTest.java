@@ -2,13 +2,17 @@ package io.hohichh.marketplace.order.integration;
 
 import io.hohichh.marketplace.order.dto.product.NewProductDto;
 import io.hohichh.marketplace.order.dto.product.ProductDto;
+import io.hohichh.marketplace.order.dto.product.ProductImportResultDto;
 import io.hohichh.marketplace.order.model.Product;
 import io.hohichh.marketplace.order.repository.ProductRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
 import java.math.BigDecimal;
@@ -206,6 +210,62 @@ class ProductAppTest extends AbstractApplicationTest {
         assertThat(response.getBody().getTotalElements()).isEqualTo(2);
     }
 
+    @Test
+    void importProducts_shouldMergeCsv_andEvictChangedProducts() {
+        // Arrange
+        Product existing = productRepository.save(createProduct("Old Name", BigDecimal.ONE));
+        restTemplate.exchange("/v1/products/" + existing.getId(), HttpMethod.GET,
+                getAuthHeaders(userToken), ProductDto.class);
+        String csv = "id,name,price\n"
+                + existing.getId() + ",New Name,2.50\n"
+                + ",\"Fresh, Item\",3\n";
+
+        // Act
+        ResponseEntity<ProductImportResultDto> response = restTemplate.exchange(
+                "/v1/products/import",
+                HttpMethod.POST,
+                importRequest(adminToken, "text/csv", csv),
+                ProductImportResultDto.class
+        );
+        ResponseEntity<ProductDto> updated = restTemplate.exchange("/v1/products/" + existing.getId(),
+                HttpMethod.GET, getAuthHeaders(userToken), ProductDto.class);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(new ProductImportResultDto(2, 1, 1));
+        assertThat(updated.getBody().name()).isEqualTo("New Name");
+        assertThat(productRepository.findAll()).extracting(Product::getName)
+                .containsExactlyInAnyOrder("New Name", "Fresh, Item");
+    }
+
+    @Test
+    void importProducts_shouldRejectWholeNdjsonInput_whenLineIsInvalid() {
+        // Arrange
+        String ndjson = """
+                {"name":"Valid","price":1}
+                {"name":"","price":2}
+                """;
+
+        // Act
+        ResponseEntity<String> response = restTemplate.exchange(
+                "/v1/products/import",
+                HttpMethod.POST,
+                importRequest(adminToken, MediaType.APPLICATION_NDJSON_VALUE, ndjson),
+                String.class
+        );
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(productRepository.findAll()).isEmpty();
+    }
+
+    private HttpEntity<String> importRequest(String token, String contentType, String body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(contentType));
+        headers.setBearerAuth(token);
+        return new HttpEntity<>(body, headers);
+    }
+
     private Product createProduct(String name, BigDecimal price) {
         Product p = new Product();
         p.setName(name);
@@ -0,0 +1,126 @@
+package io.hohichh.marketplace.order.kafka;
+
+import io.hohichh.marketplace.order.dto.event.OrderCreatedEvent;
+import io.hohichh.marketplace.order.dto.event.PaymentCreatedEvent;
+import io.hohichh.marketplace.order.model.PaymentStatus;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DualFormatEventDeserializerTest {
+    private static final String TOPIC = "payment-events";
+
+    private final AvroEventCodec codec = AvroEventCodec.fromClasspath();
+    private final AvroEventSerializer serializer = new AvroEventSerializer(codec);
+
+    @Test
+    void deserialize_shouldReadAvroEvents_writtenByAvroSerializer() {
+        PaymentCreatedEvent payment = new PaymentCreatedEvent(UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(), UUID.randomUUID().toString(), PaymentStatus.DECLINED,
+                LocalDateTime.of(2025, 3, 1, 12, 30, 15, 123_456_000));
+        OrderCreatedEvent order = new OrderCreatedEvent(UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(), new BigDecimal("129.9"));
+
+        try (DualFormatEventDeserializer deserializer = deserializer()) {
+            assertEquals(payment, deserializer.deserialize(TOPIC, serializer.serialize(TOPIC, payment)));
+            assertEquals(new BigDecimal("129.90"),
+                    ((OrderCreatedEvent) deserializer.deserialize(TOPIC, serializer.serialize(TOPIC, order))).amount());
+        }
+    }
+
+    @Test
+    void deserialize_shouldFallBackToJson_forJsonSerializerOutput() {
+        PaymentCreatedEvent payment = new PaymentCreatedEvent(UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(), UUID.randomUUID().toString(), PaymentStatus.SUCCEED,
+                LocalDateTime.of(2025, 3, 1, 12, 30));
+        RecordHeaders headers = new RecordHeaders();
+        byte[] json;
+        try (JsonSerializer<Object> jsonSerializer = new JsonSerializer<>()) {
+            json = jsonSerializer.serialize(TOPIC, headers, payment);
+        }
+
+        try (DualFormatEventDeserializer deserializer = deserializer()) {
+            assertEquals(payment, deserializer.deserialize(TOPIC, headers, json));
+        }
+    }
+
+    @Test
+    void decode_shouldResolveOlderSchema_againstNewestOne() {
+        EventSchemaRegistry v1 = new EventSchemaRegistry();
+        v1.register(1, orderCreatedSchema(""));
+        EventSchemaRegistry v2 = new EventSchemaRegistry();
+        v2.register(1, orderCreatedSchema(""));
+        v2.register(7, orderCreatedSchema(", {\"name\": \"currency\", \"type\": \"string\", \"default\": \"EUR\"}"));
+        OrderCreatedEvent order = new OrderCreatedEvent(UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(), new BigDecimal("10.00"));
+
+        assertEquals(order, new AvroEventCodec(v2).decode(new AvroEventCodec(v1).encode(order)));
+    }
+
+    @Test
+    void decode_shouldMapUnknownPaymentStatus_toDefaultSymbol() throws IOException {
+        Schema current = EventSchemaRegistry.fromClasspath().schema(2);
+        Schema writer = new Schema.Parser().parse(current.toString()
+                .replace("\"REFUNDED\"]", "\"REFUNDED\", \"CHARGED_BACK\"]"));
+        EventSchemaRegistry registry = new EventSchemaRegistry();
+        registry.register(1, writer);
+        registry.register(2, current);
+
+        GenericRecord record = new GenericData.Record(writer);
+        record.put("paymentId", "p-1");
+        record.put("orderId", "o-1");
+        record.put("userId", "u-1");
+        record.put("status", new GenericData.EnumSymbol(writer.getField("status").schema(), "CHARGED_BACK"));
+        record.put("timestamp", 0L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(new byte[]{AvroEventCodec.MAGIC_BYTE, 0, 0, 0, 1});
+        BinaryEncoder encoder = EncoderFactory.get().directBinaryEncoder(out, null);
+        new GenericDatumWriter<GenericRecord>(writer).write(record, encoder);
+        encoder.flush();
+
+        PaymentCreatedEvent event = (PaymentCreatedEvent) new AvroEventCodec(registry).decode(out.toByteArray());
+
+        assertEquals(PaymentStatus.PENDING, event.status());
+    }
+
+    @Test
+    void decode_shouldRejectUnknownSchemaId() {
+        byte[] data = {AvroEventCodec.MAGIC_BYTE, 0, 0, 0, 99, 0};
+
+        assertThrows(SerializationException.class, () -> codec.decode(data));
+    }
+
+    private DualFormatEventDeserializer deserializer() {
+        DualFormatEventDeserializer deserializer = new DualFormatEventDeserializer(codec, new JsonDeserializer<>());
+        deserializer.configure(Map.of(JsonDeserializer.TRUSTED_PACKAGES, "io.hohichh.marketplace.order.dto.event"), false);
+        return deserializer;
+    }
+
+    private static Schema orderCreatedSchema(String extraFields) {
+        return new Schema.Parser().parse("""
+                {"type": "record", "name": "OrderCreatedEvent", "namespace": "io.hohichh.marketplace.events",
+                 "fields": [
+                   {"name": "orderId", "type": "string"},
+                   {"name": "userId", "type": "string"},
+                   {"name": "amount", "type": {"type": "bytes", "logicalType": "decimal", "precision": 19, "scale": 2}}
+                   %s
+                 ]}""".formatted(extraFields));
+    }
+}
@@ -0,0 +1,104 @@
+package io.hohichh.marketplace.order.kafka;
+
+import io.hohichh.marketplace.order.dto.event.PaymentCreatedEvent;
+import io.hohichh.marketplace.order.model.PaymentStatus;
+import io.hohichh.marketplace.order.model.order.Status;
+import io.hohichh.marketplace.order.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderBatchConsumerTest {
+
+    @Mock
+    private OrderService orderService;
+    @Mock
+    private PaymentEventDeduplicator deduplicator;
+
+    @InjectMocks
+    private OrderBatchConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(deduplicator.unprocessed(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void handlePaymentsCreated_shouldApplyFinalStatusPerOrder_inOneCall() {
+        UUID paid = UUID.randomUUID();
+        UUID declined = UUID.randomUUID();
+
+        consumer.handlePaymentsCreated(List.of(
+                event(paid, PaymentStatus.PENDING),
+                event(paid, PaymentStatus.SUCCEED),
+                event(declined, PaymentStatus.SUCCEED),
+                event(declined, PaymentStatus.DECLINED),
+                event(paid, PaymentStatus.REFUNDED)
+        ));
+
+        verify(orderService).updateOrderStatusesSystem(Map.of(
+                paid, Status.PROCESSING,
+                declined, Status.CANCELLED));
+    }
+
+    @Test
+    void handlePaymentsCreated_shouldApplyOnlyUnprocessedEvents_andRecordThem() {
+        UUID applied = UUID.randomUUID();
+        UUID fresh = UUID.randomUUID();
+        PaymentCreatedEvent appliedEvent = event(applied, PaymentStatus.SUCCEED);
+        PaymentCreatedEvent freshEvent = event(fresh, PaymentStatus.SUCCEED);
+        when(deduplicator.unprocessed(List.of(appliedEvent, freshEvent))).thenReturn(List.of(freshEvent));
+
+        consumer.handlePaymentsCreated(List.of(appliedEvent, freshEvent));
+
+        verify(orderService).updateOrderStatusesSystem(Map.of(fresh, Status.PROCESSING));
+        verify(deduplicator).markProcessed(List.of(freshEvent));
+    }
+
+    @Test
+    void handlePaymentsCreated_shouldRethrow_andNotRecordEvents_whenUpdateFails() {
+        UUID orderId = UUID.randomUUID();
+        doThrow(new QueryTimeoutException("timeout")).when(orderService).updateOrderStatusesSystem(any());
+
+        assertThrows(QueryTimeoutException.class,
+                () -> consumer.handlePaymentsCreated(List.of(event(orderId, PaymentStatus.SUCCEED))));
+
+        verify(deduplicator, never()).markProcessed(any());
+    }
+
+    @Test
+    void collapse_shouldKeepCancellation_whenLaterEventSucceeds() {
+        UUID orderId = UUID.randomUUID();
+
+        Map<UUID, Status> statuses = OrderBatchConsumer.collapse(List.of(
+                event(orderId, PaymentStatus.DECLINED),
+                event(orderId, PaymentStatus.SUCCEED)));
+
+        assertEquals(Map.of(orderId, Status.CANCELLED), statuses);
+    }
+
+    @Test
+    void handlePaymentsCreated_shouldSkipServiceCall_whenNothingToApply() {
+        consumer.handlePaymentsCreated(List.of(event(UUID.randomUUID(), PaymentStatus.PENDING)));
+
+        verifyNoInteractions(orderService);
+    }
+
+    private static PaymentCreatedEvent event(UUID orderId, PaymentStatus status) {
+        return new PaymentCreatedEvent(UUID.randomUUID().toString(), orderId.toString(),
+                UUID.randomUUID().toString(), status, LocalDateTime.now());
+    }
+}
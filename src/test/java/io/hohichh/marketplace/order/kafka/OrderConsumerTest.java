@@ -0,0 +1,76 @@
+package io.hohichh.marketplace.order.kafka;
+
+import io.hohichh.marketplace.order.dto.event.PaymentCreatedEvent;
+import io.hohichh.marketplace.order.exception.ActionNotPermittedException;
+import io.hohichh.marketplace.order.model.PaymentStatus;
+import io.hohichh.marketplace.order.model.order.Status;
+import io.hohichh.marketplace.order.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderConsumerTest {
+
+    @Mock
+    private OrderService orderService;
+    @Mock
+    private PaymentEventDeduplicator deduplicator;
+
+    @InjectMocks
+    private OrderConsumer consumer;
+
+    @Test
+    void handlePaymentCreated_shouldApplyStatus_andRecordEvent() {
+        UUID orderId = UUID.randomUUID();
+        PaymentCreatedEvent event = event(orderId.toString(), PaymentStatus.SUCCEED);
+
+        consumer.handlePaymentCreated(event);
+
+        verify(orderService).updateOrderStatusSystem(orderId, Status.PROCESSING);
+        verify(deduplicator).markProcessed(List.of(event));
+    }
+
+    @Test
+    void handlePaymentCreated_shouldSkipForbiddenTransition_withoutRetry() {
+        UUID orderId = UUID.randomUUID();
+        doThrow(new ActionNotPermittedException("Order is already cancelled"))
+                .when(orderService).updateOrderStatusSystem(orderId, Status.PROCESSING);
+
+        assertDoesNotThrow(() -> consumer.handlePaymentCreated(event(orderId.toString(), PaymentStatus.SUCCEED)));
+
+        verify(deduplicator, never()).markProcessed(anyList());
+    }
+
+    @Test
+    void handlePaymentCreated_shouldSkipMalformedOrderId_withoutRetry() {
+        assertDoesNotThrow(() -> consumer.handlePaymentCreated(event("not-a-uuid", PaymentStatus.DECLINED)));
+
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void handlePaymentCreated_shouldRethrowTransientFailure_soEventGoesToRetryTopic() {
+        UUID orderId = UUID.randomUUID();
+        doThrow(new QueryTimeoutException("timeout")).when(orderService).updateOrderStatusSystem(orderId, Status.PROCESSING);
+
+        assertThrows(QueryTimeoutException.class,
+                () -> consumer.handlePaymentCreated(event(orderId.toString(), PaymentStatus.SUCCEED)));
+        verify(deduplicator, never()).markProcessed(anyList());
+    }
+
+    private static PaymentCreatedEvent event(String orderId, PaymentStatus status) {
+        return new PaymentCreatedEvent(UUID.randomUUID().toString(), orderId,
+                UUID.randomUUID().toString(), status, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,109 @@
+package io.hohichh.marketplace.order.kafka;
+
+import io.hohichh.marketplace.order.dto.event.OrderCreatedEvent;
+import io.hohichh.marketplace.order.model.OrderOutboxEvent;
+import io.hohichh.marketplace.order.repository.OrderOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderOutboxRelayTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-01-01T10:00:00Z"), ZoneOffset.UTC);
+
+    @Mock
+    private OrderOutboxRepository outboxRepository;
+
+    @Mock
+    private OrderProducer orderProducer;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OrderOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new OrderOutboxRelay(outboxRepository, orderProducer, new TransactionTemplate(transactionManager),
+                CLOCK, 100, Duration.ofMillis(200), Duration.ofMinutes(1));
+    }
+
+    @Test
+    void relayPendingEvents_shouldClaimBatch_andDeletePublished_andReleaseFailed() {
+        OrderOutboxEvent published = outboxEvent();
+        OrderOutboxEvent failed = outboxEvent();
+        when(outboxRepository.lockNextBatch(LocalDateTime.now(CLOCK), 100)).thenReturn(List.of(published, failed));
+        doReturn(CompletableFuture.completedFuture(null))
+                .doReturn(CompletableFuture.failedFuture(new ProducerOverloadedException(OrderProducer.ORDER_CREATED_TOPIC, 1)))
+                .when(orderProducer).sendOrderCreatedEvent(any(OrderCreatedEvent.class));
+
+        relay.relayPendingEvents();
+
+        LocalDateTime claimedUntil = LocalDateTime.now(CLOCK).plusMinutes(1);
+        assertEquals(claimedUntil, published.getClaimedUntil());
+        assertEquals(claimedUntil, failed.getClaimedUntil());
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(published.getId()));
+        verify(outboxRepository).releaseClaims(List.of(failed.getId()));
+        //claim and cleanup run in two separate short transactions
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void relayPendingEvents_shouldCapTotalWait_andKeepClaimOfUnacknowledgedEvents() {
+        OrderOutboxEvent acknowledged = outboxEvent();
+        OrderOutboxEvent pending = outboxEvent();
+        when(outboxRepository.lockNextBatch(any(LocalDateTime.class), anyInt())).thenReturn(List.of(acknowledged, pending));
+        doReturn(CompletableFuture.completedFuture(null))
+                .doReturn(new CompletableFuture<>())
+                .when(orderProducer).sendOrderCreatedEvent(any(OrderCreatedEvent.class));
+
+        long start = System.nanoTime();
+        relay.relayPendingEvents();
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertTrue(elapsedMillis < 1000, "relay waited " + elapsedMillis + "ms");
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(acknowledged.getId()));
+        verify(outboxRepository, never()).releaseClaims(any());
+    }
+
+    @Test
+    void relayPendingEvents_shouldNotSend_whenNothingToClaim() {
+        when(outboxRepository.lockNextBatch(any(LocalDateTime.class), anyInt())).thenReturn(List.of());
+
+        relay.relayPendingEvents();
+
+        verifyNoInteractions(orderProducer);
+        verify(outboxRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    private static OrderOutboxEvent outboxEvent() {
+        OrderOutboxEvent outboxEvent = new OrderOutboxEvent();
+        ReflectionTestUtils.setField(outboxEvent, "id", UUID.randomUUID());
+        outboxEvent.setOrderId(UUID.randomUUID());
+        outboxEvent.setUserId(UUID.randomUUID());
+        outboxEvent.setAmount(new BigDecimal("10.00"));
+        outboxEvent.setCreatedAt(LocalDateTime.now(CLOCK));
+        return outboxEvent;
+    }
+}
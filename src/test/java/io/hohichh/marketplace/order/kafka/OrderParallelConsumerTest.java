@@ -0,0 +1,192 @@
+package io.hohichh.marketplace.order.kafka;
+
+import io.hohichh.marketplace.order.dto.event.PaymentCreatedEvent;
+import io.hohichh.marketplace.order.model.PaymentStatus;
+import io.hohichh.marketplace.order.model.order.Status;
+import io.hohichh.marketplace.order.service.OrderService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderParallelConsumerTest {
+    private static final int STRIPES = 4;
+    private static final int RETRY_ATTEMPTS = 2;
+    private static final Duration BACKOFF = Duration.ofMillis(100);
+
+    @Mock
+    private OrderService orderService;
+    @Mock
+    private PaymentEventDeduplicator deduplicator;
+    @Mock
+    private ConsumerRecordRecoverer deadLetterRecoverer;
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    private OrderParallelConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(deduplicator.unprocessed(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        consumer = new OrderParallelConsumer(orderService, deduplicator, deadLetterRecoverer,
+                STRIPES, RETRY_ATTEMPTS, BACKOFF);
+    }
+
+    @AfterEach
+    void tearDown() {
+        consumer.destroy();
+    }
+
+    @Test
+    void handlePaymentsCreated_shouldApplyEventsOfOneOrderInArrivalOrder_andAcknowledge() {
+        UUID orderId = UUID.randomUUID();
+
+        consumer.handlePaymentsCreated(List.of(
+                record(0, orderId, PaymentStatus.SUCCEED),
+                record(1, UUID.randomUUID(), PaymentStatus.SUCCEED),
+                record(2, orderId, PaymentStatus.DECLINED)
+        ), acknowledgment);
+
+        InOrder inOrder = inOrder(orderService);
+        inOrder.verify(orderService).updateOrderStatusSystem(orderId, Status.PROCESSING);
+        inOrder.verify(orderService).updateOrderStatusSystem(orderId, Status.CANCELLED);
+        verify(acknowledgment).acknowledge();
+        verify(acknowledgment, never()).nack(anyInt(), any(Duration.class));
+    }
+
+    @Test
+    void handlePaymentsCreated_shouldNotWaitForSlowOrder_inOtherStripe() {
+        UUID slow = UUID.randomUUID();
+        UUID fast = orderInOtherStripe(slow);
+        CountDownLatch fastApplied = new CountDownLatch(1);
+        AtomicBoolean slowSawFast = new AtomicBoolean();
+
+        doAnswer(invocation -> {
+            slowSawFast.set(fastApplied.await(5, TimeUnit.SECONDS));
+            return null;
+        }).when(orderService).updateOrderStatusSystem(slow, Status.PROCESSING);
+        doAnswer(invocation -> {
+            fastApplied.countDown();
+            return null;
+        }).when(orderService).updateOrderStatusSystem(fast, Status.PROCESSING);
+
+        consumer.handlePaymentsCreated(List.of(
+                record(0, slow, PaymentStatus.SUCCEED),
+                record(1, fast, PaymentStatus.SUCCEED)
+        ), acknowledgment);
+
+        assertTrue(slowSawFast.get());
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void handlePaymentsCreated_shouldNackLowestFailedRecord_andSkipLaterEventsOfThatOrder() {
+        UUID failing = UUID.randomUUID();
+        doAnswer(invocation -> {
+            if (failing.equals(invocation.getArgument(0))) {
+                throw new QueryTimeoutException("timeout");
+            }
+            return null;
+        }).when(orderService).updateOrderStatusSystem(any(UUID.class), any(Status.class));
+
+        consumer.handlePaymentsCreated(List.of(
+                record(0, UUID.randomUUID(), PaymentStatus.SUCCEED),
+                record(1, failing, PaymentStatus.SUCCEED),
+                record(2, UUID.randomUUID(), PaymentStatus.SUCCEED),
+                record(3, failing, PaymentStatus.DECLINED)
+        ), acknowledgment);
+
+        verify(acknowledgment).nack(1, BACKOFF);
+        verify(acknowledgment, never()).acknowledge();
+        verify(orderService, never()).updateOrderStatusSystem(failing, Status.CANCELLED);
+    }
+
+    @Test
+    void handlePaymentsCreated_shouldPublishRecordToDlt_andMovePastIt_whenRetriesExhausted() {
+        UUID failing = UUID.randomUUID();
+        QueryTimeoutException error = new QueryTimeoutException("timeout");
+        doAnswer(invocation -> {
+            if (failing.equals(invocation.getArgument(0))) {
+                throw error;
+            }
+            return null;
+        }).when(orderService).updateOrderStatusSystem(any(UUID.class), any(Status.class));
+        ConsumerRecord<String, PaymentCreatedEvent> poisoned = record(1, failing, PaymentStatus.SUCCEED);
+        List<ConsumerRecord<String, PaymentCreatedEvent>> poll = List.of(record(0, UUID.randomUUID(), PaymentStatus.SUCCEED), poisoned);
+
+        for (int attempt = 0; attempt < RETRY_ATTEMPTS; attempt++) {
+            consumer.handlePaymentsCreated(poll, acknowledgment);
+        }
+        verify(acknowledgment, times(RETRY_ATTEMPTS)).nack(1, BACKOFF);
+        verifyNoInteractions(deadLetterRecoverer);
+
+        consumer.handlePaymentsCreated(poll, acknowledgment);
+
+        verify(deadLetterRecoverer).accept(poisoned, error);
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void handlePaymentsCreated_shouldKeepRedelivering_whenDltPublishFails() {
+        UUID failing = UUID.randomUUID();
+        doThrow(new QueryTimeoutException("timeout")).when(orderService).updateOrderStatusSystem(failing, Status.PROCESSING);
+        doThrow(new IllegalStateException("broker down")).when(deadLetterRecoverer).accept(any(), any());
+        List<ConsumerRecord<String, PaymentCreatedEvent>> poll = List.of(record(0, failing, PaymentStatus.SUCCEED));
+
+        for (int attempt = 0; attempt <= RETRY_ATTEMPTS + 1; attempt++) {
+            consumer.handlePaymentsCreated(poll, acknowledgment);
+        }
+
+        verify(deadLetterRecoverer, times(2)).accept(any(), any());
+        verify(acknowledgment, times(RETRY_ATTEMPTS + 2)).nack(0, BACKOFF);
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    @Test
+    void handlePaymentsCreated_shouldSkipAlreadyAppliedEvents_andRecordAppliedOnes() {
+        ConsumerRecord<String, PaymentCreatedEvent> applied = record(0, UUID.randomUUID(), PaymentStatus.SUCCEED);
+        ConsumerRecord<String, PaymentCreatedEvent> fresh = record(1, UUID.randomUUID(), PaymentStatus.SUCCEED);
+        when(deduplicator.unprocessed(List.of(applied.value(), fresh.value()))).thenReturn(List.of(fresh.value()));
+
+        consumer.handlePaymentsCreated(List.of(applied, fresh), acknowledgment);
+
+        verify(orderService).updateOrderStatusSystem(UUID.fromString(fresh.value().orderId()), Status.PROCESSING);
+        verifyNoMoreInteractions(orderService);
+        verify(deduplicator).markProcessed(List.of(fresh.value()));
+        verify(acknowledgment).acknowledge();
+    }
+
+    private UUID orderInOtherStripe(UUID orderId) {
+        int stripe = Math.floorMod(orderId.toString().hashCode(), STRIPES);
+        UUID other;
+        do {
+            other = UUID.randomUUID();
+        } while (Math.floorMod(other.toString().hashCode(), STRIPES) == stripe);
+        return other;
+    }
+
+    private static ConsumerRecord<String, PaymentCreatedEvent> record(long offset, UUID orderId, PaymentStatus status) {
+        PaymentCreatedEvent event = new PaymentCreatedEvent(UUID.randomUUID().toString(), orderId.toString(),
+                UUID.randomUUID().toString(), status, LocalDateTime.now());
+        return new ConsumerRecord<>("payment-events", 0, offset, orderId.toString(), event);
+    }
+}
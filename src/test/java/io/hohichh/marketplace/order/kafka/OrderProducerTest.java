@@ -0,0 +1,83 @@
+package io.hohichh.marketplace.order.kafka;
+
+import io.hohichh.marketplace.order.config.KafkaProducerProperties;
+import io.hohichh.marketplace.order.config.ProducerProfile;
+import io.hohichh.marketplace.order.dto.event.OrderCreatedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderProducerTest {
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void sendOrderCreatedEvent_shouldShedSend_whenInFlightLimitReached_andAcceptAfterCompletion() {
+        CompletableFuture<SendResult<String, Object>> pending = new CompletableFuture<>();
+        doReturn(pending).when(kafkaTemplate).send(anyString(), anyString(), any());
+        OrderProducer producer = producer(KafkaProducerProperties.Overflow.SHED);
+
+        producer.sendOrderCreatedEvent(event());
+        CompletableFuture<?> rejected = producer.sendOrderCreatedEvent(event());
+
+        ExecutionException error = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(ProducerOverloadedException.class, error.getCause());
+        assertEquals(1.0, meterRegistry.get("kafka.producer.send.rejected").counter().count());
+
+        pending.complete(result());
+        producer.sendOrderCreatedEvent(event());
+
+        verify(kafkaTemplate, times(2)).send(eq(OrderProducer.ORDER_CREATED_TOPIC), anyString(), any());
+    }
+
+    @Test
+    void sendOrderCreatedEvent_shouldRecordLatencyPerTopicAndOutcome() {
+        doReturn(CompletableFuture.completedFuture(result()))
+                .doReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")))
+                .when(kafkaTemplate).send(anyString(), anyString(), any());
+        OrderProducer producer = producer(KafkaProducerProperties.Overflow.WAIT);
+
+        producer.sendOrderCreatedEvent(event());
+        producer.sendOrderCreatedEvent(event());
+
+        assertEquals(1, meterRegistry.get("kafka.producer.send")
+                .tags("topic", OrderProducer.ORDER_CREATED_TOPIC, "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("kafka.producer.send")
+                .tags("outcome", "error", "exception", "IllegalStateException").timer().count());
+        assertEquals(0.0, meterRegistry.get("kafka.producer.in.flight").gauge().value());
+    }
+
+    private OrderProducer producer(KafkaProducerProperties.Overflow overflow) {
+        return new OrderProducer(kafkaTemplate, meterRegistry,
+                new KafkaProducerProperties(ProducerProfile.DEFAULT, 1, overflow, Duration.ofMillis(10)));
+    }
+
+    private static OrderCreatedEvent event() {
+        return new OrderCreatedEvent(UUID.randomUUID().toString(), UUID.randomUUID().toString(), BigDecimal.TEN);
+    }
+
+    private static SendResult<String, Object> result() {
+        return new SendResult<>(new ProducerRecord<>(OrderProducer.ORDER_CREATED_TOPIC, "key", "value"),
+                new RecordMetadata(new TopicPartition(OrderProducer.ORDER_CREATED_TOPIC, 0), 0, 0, 0, 0, 0));
+    }
+}
@@ -0,0 +1,111 @@
+package io.hohichh.marketplace.order.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentDltReplayerTest {
+    private static final TopicPartition DLT_PARTITION = new TopicPartition(PaymentDltReplayer.DLT_TOPIC, 0);
+
+    @Mock
+    private ConsumerFactory<Object, Object> consumerFactory;
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    private CommitRecordingConsumer consumer;
+    private PaymentDltReplayer replayer;
+
+    @BeforeEach
+    void setUp() {
+        consumer = new CommitRecordingConsumer();
+        consumer.updatePartitions(PaymentDltReplayer.DLT_TOPIC,
+                List.of(new PartitionInfo(PaymentDltReplayer.DLT_TOPIC, 0, null, null, null)));
+        consumer.updateBeginningOffsets(Map.of(DLT_PARTITION, 0L));
+        when(consumerFactory.createConsumer(eq(PaymentDltReplayer.REPLAY_GROUP), any(), any(), any(Properties.class)))
+                .thenReturn(consumer);
+        replayer = new PaymentDltReplayer(consumerFactory, kafkaTemplate, Duration.ofMillis(10), Duration.ofSeconds(1));
+    }
+
+    @Test
+    void replay_shouldSendDeadLettersToMainTopic_andCommitUpToLastSent() {
+        doReturn(CompletableFuture.completedFuture(null)).when(kafkaTemplate).send(anyString(), any(), any());
+        consumer.updateEndOffsets(Map.of(DLT_PARTITION, 3L));
+        addRecords("first", "second", "third");
+
+        long replayed = replayer.replay(2);
+
+        assertEquals(2, replayed);
+        verify(kafkaTemplate).send(PaymentDltReplayer.PAYMENT_TOPIC, "key-0", "first");
+        verify(kafkaTemplate).send(PaymentDltReplayer.PAYMENT_TOPIC, "key-1", "second");
+        verifyNoMoreInteractions(kafkaTemplate);
+        assertEquals(2L, consumer.commits.get(DLT_PARTITION).offset());
+    }
+
+    @Test
+    void replay_shouldStopAtEndOffsetsTakenAtStart() {
+        doReturn(CompletableFuture.completedFuture(null)).when(kafkaTemplate).send(anyString(), any(), any());
+        consumer.updateEndOffsets(Map.of(DLT_PARTITION, 2L));
+        addRecords("first", "second", "failed again during replay");
+
+        long replayed = replayer.replay(100);
+
+        assertEquals(2, replayed);
+        verify(kafkaTemplate, never()).send(anyString(), any(), eq("failed again during replay"));
+        assertEquals(2L, consumer.commits.get(DLT_PARTITION).offset());
+    }
+
+    @Test
+    void replay_shouldNotCommit_whenSendFails() {
+        doReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")))
+                .when(kafkaTemplate).send(anyString(), any(), any());
+        consumer.updateEndOffsets(Map.of(DLT_PARTITION, 1L));
+        addRecords("first");
+
+        assertThrows(IllegalStateException.class, () -> replayer.replay(10));
+        assertTrue(consumer.commits.isEmpty());
+    }
+
+    private void addRecords(String... values) {
+        consumer.schedulePollTask(() -> {
+            for (int i = 0; i < values.length; i++) {
+                consumer.addRecord(new ConsumerRecord<>(PaymentDltReplayer.DLT_TOPIC, 0, i, "key-" + i, values[i]));
+            }
+        });
+    }
+
+    private static class CommitRecordingConsumer extends MockConsumer<Object, Object> {
+        private final Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+
+        CommitRecordingConsumer() {
+            super(OffsetResetStrategy.EARLIEST);
+        }
+
+        @Override
+        public synchronized void commitSync(Map<TopicPartition, OffsetAndMetadata> offsets) {
+            commits.putAll(offsets);
+            super.commitSync(offsets);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package io.hohichh.marketplace.order.kafka;
+
+import io.hohichh.marketplace.order.dto.event.PaymentCreatedEvent;
+import io.hohichh.marketplace.order.model.PaymentStatus;
+import io.hohichh.marketplace.order.repository.ProcessedPaymentEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentEventDeduplicatorTest {
+    private static final Instant NOW = Instant.parse("2025-03-01T12:00:00Z");
+
+    @Mock
+    private ProcessedPaymentEventRepository processedRepository;
+
+    private PaymentEventDeduplicator deduplicator;
+
+    @BeforeEach
+    void setUp() {
+        deduplicator = new PaymentEventDeduplicator(processedRepository, Clock.fixed(NOW, ZoneOffset.UTC),
+                Duration.ofDays(7), 100, 2);
+    }
+
+    @Test
+    void unprocessed_shouldDropIdsFoundInStore_andKeepFirstOfRepeatedIds() {
+        PaymentCreatedEvent applied = event(PaymentStatus.SUCCEED);
+        PaymentCreatedEvent fresh = event(PaymentStatus.DECLINED);
+        PaymentCreatedEvent redelivered = copy(fresh);
+        when(processedRepository.findProcessedIds(Set.of(applied.paymentId(), fresh.paymentId())))
+                .thenReturn(Set.of(applied.paymentId()));
+
+        List<PaymentCreatedEvent> result = deduplicator.unprocessed(List.of(applied, fresh, redelivered));
+
+        assertEquals(1, result.size());
+        assertSame(fresh, result.getFirst());
+    }
+
+    @Test
+    void unprocessed_shouldAnswerFromMemory_forRecordedIds() {
+        PaymentCreatedEvent event = event(PaymentStatus.SUCCEED);
+        deduplicator.markProcessed(List.of(event));
+
+        assertTrue(deduplicator.unprocessed(List.of(copy(event))).isEmpty());
+        verify(processedRepository, never()).findProcessedIds(any());
+    }
+
+    @Test
+    void unprocessed_shouldPassEventsThatDontChangeOrder_withoutLookup() {
+        PaymentCreatedEvent pending = event(PaymentStatus.PENDING);
+
+        assertEquals(List.of(pending), deduplicator.unprocessed(List.of(pending)));
+        verifyNoInteractions(processedRepository);
+    }
+
+    @Test
+    void purgeExpired_shouldDeleteInChunks_untilChunkIsNotFull() {
+        LocalDateTime cutoff = LocalDateTime.ofInstant(NOW, ZoneOffset.UTC).minusDays(7);
+        when(processedRepository.deleteProcessedBefore(cutoff, 2)).thenReturn(2, 2, 1);
+
+        deduplicator.purgeExpired();
+
+        verify(processedRepository, times(3)).deleteProcessedBefore(cutoff, 2);
+    }
+
+    private static PaymentCreatedEvent event(PaymentStatus status) {
+        return new PaymentCreatedEvent(UUID.randomUUID().toString(), UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(), status, LocalDateTime.now());
+    }
+
+    private static PaymentCreatedEvent copy(PaymentCreatedEvent event) {
+        return new PaymentCreatedEvent(event.paymentId(), event.orderId(), event.userId(),
+                event.status(), event.timestamp());
+    }
+}
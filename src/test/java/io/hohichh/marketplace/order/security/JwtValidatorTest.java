@@ -0,0 +1,74 @@
+package io.hohichh.marketplace.order.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JwtValidatorTest {
+    private static final String SECRET = "my-dummy-test-secret-key-that-doesnt-matter";
+    private static final Instant NOW = Instant.parse("2025-01-01T12:00:00Z");
+
+    private Clock clock;
+    private JwtValidator validator;
+
+    @BeforeEach
+    void setUp() {
+        clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(NOW);
+        validator = new JwtValidator(SECRET, clock, 100, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void verify_validToken_shouldReturnClaims_andReuseThemOnRepeatedCalls() {
+        UUID userId = UUID.randomUUID();
+        String token = token(userId, SECRET, NOW.plusSeconds(3600));
+
+        Optional<Claims> first = validator.verify(token);
+        Optional<Claims> second = validator.verify(token);
+
+        assertTrue(first.isPresent());
+        assertEquals(userId.toString(), first.get().getSubject());
+        assertEquals("USER", first.get().get("role", String.class));
+        assertSame(first.get(), second.get());
+    }
+
+    @Test
+    void verify_tokenSignedWithOtherKey_shouldBeRejected() {
+        String token = token(UUID.randomUUID(), SECRET + "-other", NOW.plusSeconds(3600));
+
+        assertTrue(validator.verify(token).isEmpty());
+    }
+
+    @Test
+    void verify_cachedTokenPastExpiry_shouldBeRejected() {
+        String token = token(UUID.randomUUID(), SECRET, NOW.plusSeconds(60));
+        assertTrue(validator.verify(token).isPresent());
+
+        when(clock.instant()).thenReturn(NOW.plusSeconds(61));
+
+        assertTrue(validator.verify(token).isEmpty());
+    }
+
+    private static String token(UUID userId, String secret, Instant expiration) {
+        return Jwts.builder()
+                .subject(userId.toString())
+                .claim("role", "USER")
+                .issuedAt(Date.from(NOW))
+                .expiration(Date.from(expiration))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}
@@ -0,0 +1,46 @@
+package io.hohichh.marketplace.order.security;
+
+import io.hohichh.marketplace.order.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderSecurityTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @InjectMocks
+    private OrderSecurity orderSecurity;
+
+    @Test
+    void isOrderOwner_shouldCompareProjectedOwner_withoutLoadingOrder() {
+        UUID orderId = UUID.randomUUID();
+        UUID ownerId = UUID.randomUUID();
+        when(orderRepository.findUserIdById(orderId)).thenReturn(Optional.of(ownerId));
+
+        assertTrue(orderSecurity.isOrderOwner(orderId, new TestingAuthenticationToken(ownerId.toString(), null)));
+        assertFalse(orderSecurity.isOrderOwner(orderId, new TestingAuthenticationToken(UUID.randomUUID().toString(), null)));
+
+        verify(orderRepository, times(2)).findUserIdById(orderId);
+        verifyNoMoreInteractions(orderRepository);
+    }
+
+    @Test
+    void isOrderOwner_shouldReturnFalse_whenOrderDoesNotExist() {
+        UUID orderId = UUID.randomUUID();
+        when(orderRepository.findUserIdById(orderId)).thenReturn(Optional.empty());
+
+        assertFalse(orderSecurity.isOrderOwner(orderId, new TestingAuthenticationToken(UUID.randomUUID().toString(), null)));
+    }
+}
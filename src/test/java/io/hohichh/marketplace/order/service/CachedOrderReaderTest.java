@@ -0,0 +1,55 @@
+package io.hohichh.marketplace.order.service;
+
+import io.hohichh.marketplace.order.dto.OrderWithItemsDto;
+import io.hohichh.marketplace.order.exception.ResourceNotFoundException;
+import io.hohichh.marketplace.order.mapper.OrderMapper;
+import io.hohichh.marketplace.order.model.order.Order;
+import io.hohichh.marketplace.order.model.order.Status;
+import io.hohichh.marketplace.order.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachedOrderReaderTest {
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private OrderMapper orderMapper;
+
+    @InjectMocks
+    private CachedOrderReader orderReader;
+
+    @Test
+    void getOrder_shouldMapOrderWithoutUser() {
+        UUID orderId = UUID.randomUUID();
+        Order order = new Order();
+        OrderWithItemsDto expectedDto = new OrderWithItemsDto(
+                orderId, UUID.randomUUID(), Status.PENDING, LocalDate.of(2025, 1, 1), null, List.of()
+        );
+
+        when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
+        when(orderMapper.toDtoWithItems(order, null)).thenReturn(expectedDto);
+
+        assertEquals(expectedDto, orderReader.getOrder(orderId));
+    }
+
+    @Test
+    void getOrder_shouldThrowResourceNotFoundException() {
+        UUID orderId = UUID.randomUUID();
+        when(orderRepository.findById(orderId)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> orderReader.getOrder(orderId));
+        verifyNoInteractions(orderMapper);
+    }
+}
@@ -0,0 +1,135 @@
+package io.hohichh.marketplace.order.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.hohichh.marketplace.order.exception.ActionNotPermittedException;
+import io.hohichh.marketplace.order.exception.InvalidRequestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyGuardTest {
+    private static final Duration LEASE = Duration.ofMillis(30);
+    private static final List<String> REQUEST = List.of("item-1", "item-2");
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+    @Mock
+    private ValueOperations<String, Object> valueOperations;
+    @Mock
+    private Supplier<String> action;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private IdempotencyGuard idempotencyGuard;
+
+    private final String redisKey = "idempotency::user::key-1";
+    private final String requestKey = redisKey + "::request";
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        idempotencyGuard = new IdempotencyGuard(redisTemplate, objectMapper,
+                Duration.ofHours(24), Duration.ofMillis(200), LEASE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        idempotencyGuard.shutdown();
+    }
+
+    @Test
+    void execute_shouldRunActionAndStoreResult_whenKeyIsNew() throws Exception {
+        when(valueOperations.setIfAbsent(eq(redisKey), any(), any(Duration.class))).thenReturn(true);
+        when(action.get()).thenReturn("result");
+
+        String result = idempotencyGuard.execute("user", "key-1", REQUEST, String.class, action);
+
+        assertEquals("result", result);
+        verify(valueOperations).set(redisKey, "result", Duration.ofHours(24));
+        verify(valueOperations).set(requestKey, hash(REQUEST), Duration.ofHours(24));
+    }
+
+    @Test
+    void execute_shouldReplayStoredResult_withoutRunningAction() throws Exception {
+        when(valueOperations.setIfAbsent(eq(redisKey), any(), any(Duration.class))).thenReturn(false);
+        when(valueOperations.get(requestKey)).thenReturn(hash(REQUEST));
+        when(valueOperations.get(redisKey)).thenReturn("IN_FLIGHT", "stored");
+
+        String result = idempotencyGuard.execute("user", "key-1", REQUEST, String.class, action);
+
+        assertEquals("stored", result);
+        verifyNoInteractions(action);
+    }
+
+    @Test
+    void execute_shouldRejectReusedKey_whenRequestDiffers() throws Exception {
+        when(valueOperations.setIfAbsent(eq(redisKey), any(), any(Duration.class))).thenReturn(false);
+        when(valueOperations.get(requestKey)).thenReturn(hash(List.of("other-item")));
+
+        assertThrows(InvalidRequestException.class,
+                () -> idempotencyGuard.execute("user", "key-1", REQUEST, String.class, action));
+
+        verifyNoInteractions(action);
+        verify(valueOperations, never()).get(redisKey);
+    }
+
+    @Test
+    void execute_shouldRenewInFlightMarker_whileActionRuns() {
+        when(valueOperations.setIfAbsent(eq(redisKey), any(), eq(LEASE))).thenReturn(true);
+        when(action.get()).thenAnswer(invocation -> {
+            Thread.sleep(LEASE.toMillis() * 4);
+            return "result";
+        });
+
+        idempotencyGuard.execute("user", "key-1", REQUEST, String.class, action);
+
+        verify(redisTemplate, atLeastOnce()).expire(redisKey, LEASE);
+        verify(redisTemplate, atLeastOnce()).expire(requestKey, LEASE);
+    }
+
+    @Test
+    void execute_shouldReleaseKey_whenActionFails() {
+        when(valueOperations.setIfAbsent(eq(redisKey), any(), any(Duration.class))).thenReturn(true);
+        when(action.get()).thenThrow(new IllegalStateException("boom"));
+
+        assertThrows(IllegalStateException.class,
+                () -> idempotencyGuard.execute("user", "key-1", REQUEST, String.class, action));
+
+        verify(redisTemplate).delete(redisKey);
+        verify(redisTemplate).delete(requestKey);
+        verify(valueOperations, never()).set(eq(redisKey), any(), any(Duration.class));
+    }
+
+    @Test
+    void execute_shouldThrowConflict_whenOriginalRequestIsStillInFlight() throws Exception {
+        when(valueOperations.setIfAbsent(eq(redisKey), any(), any(Duration.class))).thenReturn(false);
+        when(valueOperations.get(requestKey)).thenReturn(hash(REQUEST));
+        when(valueOperations.get(redisKey)).thenReturn("IN_FLIGHT");
+
+        assertThrows(ActionNotPermittedException.class,
+                () -> idempotencyGuard.execute("user", "key-1", REQUEST, String.class, action));
+
+        verifyNoInteractions(action);
+    }
+
+    private String hash(Object request) throws Exception {
+        return HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request)));
+    }
+}
@@ -1,19 +1,23 @@
 package io.hohichh.marketplace.order.service;
 
-import io.hohichh.marketplace.order.client.UserServiceClient;
+import io.hohichh.marketplace.order.cache.RedisBulkCache;
+import io.hohichh.marketplace.order.client.UserProfileLookup;
+import io.hohichh.marketplace.order.config.PaginationProperties;
 import io.hohichh.marketplace.order.dto.*;
 import io.hohichh.marketplace.order.dto.item.NewOrderItemDto;
 import io.hohichh.marketplace.order.dto.product.ProductDto;
 import io.hohichh.marketplace.order.exception.ActionNotPermittedException;
+import io.hohichh.marketplace.order.exception.InvalidRequestException;
 import io.hohichh.marketplace.order.exception.ResourceNotFoundException;
-import io.hohichh.marketplace.order.kafka.OrderProducer;
 import io.hohichh.marketplace.order.mapper.OrderItemMapper;
 import io.hohichh.marketplace.order.mapper.OrderMapper;
 import io.hohichh.marketplace.order.mapper.ProductMapper;
 import io.hohichh.marketplace.order.model.OrderItem;
+import io.hohichh.marketplace.order.model.OrderOutboxEvent;
 import io.hohichh.marketplace.order.model.order.Order;
 import io.hohichh.marketplace.order.model.order.Status;
 import io.hohichh.marketplace.order.repository.OrderItemRepository;
+import io.hohichh.marketplace.order.repository.OrderOutboxRepository;
 import io.hohichh.marketplace.order.repository.OrderRepository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -21,13 +25,17 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.cloud.client.circuitbreaker.CircuitBreaker;
-import org.springframework.cloud.client.circuitbreaker.CircuitBreakerFactory;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
@@ -36,20 +44,26 @@ import org.springframework.test.util.ReflectionTestUtils;
 
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.function.Function;
-import java.util.function.Supplier;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -68,16 +82,20 @@ class OrderServiceTest {
     @Mock
     private OrderItemMapper orderItemMapper;
     @Mock
-    private UserServiceClient userClient;
-    @Mock
-    private CircuitBreakerFactory circuitBreakerFactory;
-    @Mock
-    private CircuitBreaker circuitBreaker;
+    private UserProfileLookup userLookup;
     @Mock
     private Clock clock;
     private final String fakeToken = "Bearer test-token-123";
     @Mock
-    private OrderProducer orderProducer;
+    private OrderOutboxRepository orderOutboxRepository;
+    @Mock
+    private CachedOrderReader orderReader;
+    @Spy
+    private PaginationProperties pagination = new PaginationProperties(100);
+    @Mock
+    private OrderExportWriter orderExportWriter;
+    @Mock
+    private RedisBulkCache bulkCache;
 
 
     @InjectMocks
@@ -88,18 +106,13 @@ class OrderServiceTest {
 
     private final UUID userId = UUID.randomUUID();
     private final LocalDate fixedDate = LocalDate.of(2025, 1, 1);
+    private static final OrderSearchFilter EMPTY_FILTER = new OrderSearchFilter(null, null, null, null, null);
 
     @BeforeEach
     void setUp() {
-        lenient().when(circuitBreakerFactory.create(any())).thenReturn(circuitBreaker);
-        lenient().when(circuitBreaker.run(any(), any())).thenAnswer(invocation -> {
-            Supplier<Object> supplier = invocation.getArgument(0);
-            try {
-                return supplier.get();
-            } catch (Exception e) {
-                Function<Throwable, Object> fallback = invocation.getArgument(1);
-                return fallback.apply(e);
-            }
+        lenient().when(userLookup.await(any(), any())).thenAnswer(invocation -> {
+            CompletableFuture<UserDto> lookup = invocation.getArgument(0);
+            return lookup.join();
         });
 
         lenient().when(clock.instant()).thenReturn(Instant.parse("2025-01-01T10:00:00Z"));
@@ -158,18 +171,73 @@ class OrderServiceTest {
                 orderId, userId, Status.PENDING, fixedDate, null, List.of()
         );
 
-        when(productService.getProductById(productId)).thenReturn(productDto);
+        when(productService.getProductsByIds(List.of(productId))).thenReturn(Map.of(productId, productDto));
         when(orderRepository.save(any(Order.class))).thenReturn(savedOrder);
 
-        when(userClient.getUserById(fakeToken, userId)).thenReturn(null);
+        when(userLookup.lookupAsync(fakeToken, userId)).thenReturn(CompletableFuture.completedFuture(null));
         when(orderMapper.toDtoWithItems(savedOrder, null)).thenReturn(expectedDto);
 
         OrderWithItemsDto result = orderService.createOrder(items);
 
         assertNotNull(result);
         assertEquals(expectedDto, result);
-        verify(orderRepository).save(any(Order.class));
-        verify(orderProducer).sendOrderCreatedEvent(any());
+        verify(orderRepository).save(argThat(order ->
+                new BigDecimal("20.00").equals(order.getTotalAmount()) && order.getItemCount() == 2));
+        verify(orderOutboxRepository).save(any(OrderOutboxEvent.class));
+    }
+
+    @Test
+    void createOrders_shouldReportFailedEntries_andSaveValidOnes() {
+        UUID productId = UUID.randomUUID();
+        UUID unknownProductId = UUID.randomUUID();
+        ProductDto productDto = new ProductDto(productId, "Test Product", BigDecimal.TEN);
+
+        OrderItem mockItem = new OrderItem();
+        mockItem.setProductId(productId);
+        mockItem.setPricePerUnit(BigDecimal.TEN);
+        mockItem.setQuantity(2);
+
+        List<NewOrderDto> orders = List.of(
+                new NewOrderDto(userId, List.of(new NewOrderItemDto(productId, 2))),
+                new NewOrderDto(userId, List.of(new NewOrderItemDto(unknownProductId, 1))),
+                new NewOrderDto(userId, List.of())
+        );
+
+        when(productService.findProductsByIds(List.of(productId, unknownProductId)))
+                .thenReturn(Map.of(productId, productDto));
+        when(orderItemMapper.toOrderItem(any(), any(), eq(productDto))).thenReturn(mockItem);
+
+        List<OrderBatchResultDto> results = orderService.createOrders(orders);
+
+        assertEquals(3, results.size());
+        assertNull(results.get(0).error());
+        assertTrue(results.get(1).error().contains(unknownProductId.toString()));
+        assertEquals("Order has no items", results.get(2).error());
+        assertNull(results.get(1).orderId());
+
+        verify(orderRepository).saveAll(argThat(saved -> ((List<Order>) saved).size() == 1));
+        verify(orderOutboxRepository).saveAll(argThat(saved -> ((List<OrderOutboxEvent>) saved).size() == 1));
+        verifyNoInteractions(userLookup);
+    }
+
+    @Test
+    void createOrders_shouldReportNullOrderAndNullItem_perEntry() {
+        UUID productId = UUID.randomUUID();
+        ProductDto productDto = new ProductDto(productId, "Test Product", BigDecimal.TEN);
+
+        List<NewOrderDto> orders = Arrays.asList(
+                null,
+                new NewOrderDto(userId, Arrays.asList(new NewOrderItemDto(productId, 1), null))
+        );
+
+        when(productService.findProductsByIds(List.of(productId))).thenReturn(Map.of(productId, productDto));
+
+        List<OrderBatchResultDto> results = orderService.createOrders(orders);
+
+        assertEquals(2, results.size());
+        assertEquals("User id is required", results.get(0).error());
+        assertEquals("Item is required", results.get(1).error());
+        verify(orderRepository).saveAll(argThat(saved -> ((List<Order>) saved).isEmpty()));
     }
 
     @Test
@@ -187,8 +255,7 @@ class OrderServiceTest {
         assertEquals(Status.PROCESSING, existingOrder.getStatus());
         verify(orderRepository).save(existingOrder);
 
-        verifyNoInteractions(userClient);
-        verifyNoInteractions(circuitBreakerFactory);
+        verifyNoInteractions(userLookup);
     }
 
     @Test
@@ -212,7 +279,7 @@ class OrderServiceTest {
 
         when(orderRepository.findById(orderId)).thenReturn(Optional.of(existingOrder));
         when(orderRepository.save(existingOrder)).thenReturn(updatedOrder);
-        when(userClient.getUserById(fakeToken, userId)).thenReturn(null);
+        when(userLookup.lookupAsync(fakeToken, userId)).thenReturn(CompletableFuture.completedFuture(null));
         when(orderMapper.toDtoWithItems(updatedOrder, null)).thenReturn(expectedDto);
 
         OrderWithItemsDto result = orderService.updateOrderStatus(orderId, statusDto);
@@ -245,6 +312,7 @@ class OrderServiceTest {
 
         when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
         when(orderRepository.save(order)).thenReturn(order);
+        when(userLookup.lookupAsync(fakeToken, userId)).thenReturn(CompletableFuture.completedFuture(null));
         when(orderMapper.toDtoWithItems(order, null)).thenReturn(expectedDto);
 
         OrderWithItemsDto result = orderService.cancelOrder(orderId);
@@ -286,32 +354,90 @@ class OrderServiceTest {
     }
 
     @Test
-    void getOrderById_shouldReturnOrderWithItemsDto_userDtoShouldBeNull() {
+    void getOrderById_shouldComposeUserIntoCachedOrder() {
         UUID orderId = UUID.randomUUID();
-        Order order = new Order();
-        setOrderId(order, orderId);
-        order.setUserId(userId);
+        UserDto userDto = new UserDto(userId, "John", "Doe", LocalDate.of(1990, 1, 1), "john@test.com");
+        OrderWithItemsDto cachedOrder = new OrderWithItemsDto(
+                orderId, userId, Status.PENDING, fixedDate, null, List.of()
+        );
 
-        OrderWithItemsDto expectedDto = new OrderWithItemsDto(
+        when(orderReader.getOrder(orderId)).thenReturn(cachedOrder);
+        when(userLookup.lookupAsync(fakeToken, userId)).thenReturn(CompletableFuture.completedFuture(userDto));
+
+        OrderWithItemsDto result = orderService.getOrderById(orderId);
+
+        assertEquals(cachedOrder.withUserDto(userDto), result);
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void getOrderById_shouldPassRequestLatencyBudgetToUserLookup() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", fakeToken);
+        request.addHeader("X-User-Lookup-Budget-Ms", "50");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        UUID orderId = UUID.randomUUID();
+        OrderWithItemsDto cachedOrder = new OrderWithItemsDto(
                 orderId, userId, Status.PENDING, fixedDate, null, List.of()
         );
+        CompletableFuture<UserDto> pendingLookup = new CompletableFuture<>();
 
-        when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
-        when(userClient.getUserById(fakeToken, userId)).thenReturn(null);
-        when(orderMapper.toDtoWithItems(order, null)).thenReturn(expectedDto);
+        when(orderReader.getOrder(orderId)).thenReturn(cachedOrder);
+        when(userLookup.lookupAsync(fakeToken, userId)).thenReturn(pendingLookup);
+        doReturn(null).when(userLookup).await(pendingLookup, Duration.ofMillis(50));
 
         OrderWithItemsDto result = orderService.getOrderById(orderId);
 
-        assertEquals(expectedDto, result);
+        assertNull(result.userDto());
     }
 
     @Test
     void getOrderById_shouldThrowResourceNotFoundException() {
         UUID orderId = UUID.randomUUID();
-        when(orderRepository.findById(orderId)).thenReturn(Optional.empty());
+        when(orderReader.getOrder(orderId)).thenThrow(new ResourceNotFoundException("not found"));
 
         assertThrows(ResourceNotFoundException.class,
                 () -> orderService.getOrderById(orderId));
+        verifyNoInteractions(userLookup);
+    }
+
+    @Test
+    void scrollOrders_shouldSeekAfterCursor_andReturnNextCursor() {
+        UUID lastSeenId = UUID.randomUUID();
+        String cursor = new SeekCursor(fixedDate, lastSeenId).encode();
+
+        Order first = new Order();
+        setOrderId(first, UUID.randomUUID());
+        first.setCreationDate(fixedDate);
+        Order second = new Order();
+        setOrderId(second, UUID.randomUUID());
+
+        doReturn(List.of(first, second)).when(orderRepository).findBy(any(Specification.class), any());
+        when(orderMapper.toDtoList(List.of(first))).thenReturn(List.of());
+
+        OrderSearchFilter filter = new OrderSearchFilter(null, List.of(Status.PENDING), null, null, null);
+        CursorPageDto<OrderDto> result = orderService.scrollOrders(filter, cursor, 1);
+
+        assertEquals(new SeekCursor(fixedDate, first.getId()), SeekCursor.decode(result.nextCursor()));
+    }
+
+    @Test
+    void scrollOrders_shouldRejectMalformedCursor() {
+        assertThrows(InvalidRequestException.class,
+                () -> orderService.scrollOrders(EMPTY_FILTER, "not-a-cursor", 10));
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void getOrdersByUserId_withPageSizeAboveMax_shouldBeLimited() {
+        when(orderRepository.findFirstByUserId(userId, Limit.of(101))).thenReturn(List.of());
+        when(orderMapper.toDtoList(List.of())).thenReturn(List.of());
+
+        CursorPageDto<OrderDto> result = orderService.getOrdersByUserId(userId, null, 5000);
+
+        assertTrue(result.content().isEmpty());
+        assertNull(result.nextCursor());
     }
 
     @Test
@@ -319,7 +445,7 @@ class OrderServiceTest {
         Order order = new Order();
         setOrderId(order, UUID.randomUUID());
         List<Order> orders = List.of(order);
-        OrderDto orderDto = new OrderDto(order.getId(), userId, Status.PENDING, fixedDate);
+        OrderDto orderDto = new OrderDto(order.getId(), userId, Status.PENDING, fixedDate, null, null);
 
         when(orderRepository.findOrdersByUserId(userId)).thenReturn(orders);
         when(orderMapper.toDtoList(orders)).thenReturn(List.of(orderDto));
@@ -336,15 +462,112 @@ class OrderServiceTest {
         Order order = new Order();
         setOrderId(order, UUID.randomUUID());
         Page<Order> orderPage = new PageImpl<>(List.of(order));
-        OrderDto orderDto = new OrderDto(order.getId(), userId, Status.PENDING, fixedDate);
+        OrderDto orderDto = new OrderDto(order.getId(), userId, Status.PENDING, fixedDate, null, null);
 
-        when(orderRepository.findAllByFilter(any(), any(), eq(pageable))).thenReturn(orderPage);
+        when(orderRepository.findAll(any(Specification.class), eq(pageable))).thenReturn(orderPage);
         when(orderMapper.toDto(order)).thenReturn(orderDto);
 
-        Page<OrderDto> result = orderService.searchOrders(null, null, pageable);
+        Page<OrderDto> result = (Page<OrderDto>) orderService.searchOrders(EMPTY_FILTER, CountMode.EXACT, pageable);
 
         assertNotNull(result);
         assertEquals(1, result.getTotalElements());
         assertEquals(orderDto, result.getContent().get(0));
     }
-}
\ No newline at end of file
+
+    @Test
+    void searchOrders_withoutCount_shouldReturnSliceAndSkipCounting() {
+        Pageable pageable = PageRequest.of(0, 1);
+        Order order = new Order();
+        setOrderId(order, UUID.randomUUID());
+        doReturn(new SliceImpl<>(List.of(order), pageable, true))
+                .when(orderRepository).findBy(any(Specification.class), any());
+        when(orderMapper.toDto(order)).thenReturn(new OrderDto(order.getId(), userId, Status.PENDING, fixedDate, null, null));
+
+        Slice<OrderDto> result = orderService.searchOrders(EMPTY_FILTER, CountMode.NONE, pageable);
+
+        assertFalse(result instanceof Page);
+        assertTrue(result.hasNext());
+        verify(orderRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+        verify(orderRepository, never()).estimateCount(any());
+    }
+
+    @Test
+    void searchOrders_withEstimatedCount_shouldUsePlannerEstimate_whenMorePagesFollow() {
+        Pageable pageable = PageRequest.of(2, 1);
+        Order order = new Order();
+        setOrderId(order, UUID.randomUUID());
+        doReturn(new SliceImpl<>(List.of(order), pageable, true))
+                .when(orderRepository).findBy(any(Specification.class), any());
+        when(orderRepository.estimateCount(EMPTY_FILTER)).thenReturn(1L);
+
+        Page<OrderDto> result = (Page<OrderDto>) orderService.searchOrders(EMPTY_FILTER, CountMode.ESTIMATED, pageable);
+
+        //a stale estimate never hides the rows already known to exist
+        assertEquals(4, result.getTotalElements());
+    }
+
+    @Test
+    void searchOrders_withEstimatedCount_shouldBeExact_onLastPage() {
+        Pageable pageable = PageRequest.of(1, 10);
+        Order order = new Order();
+        setOrderId(order, UUID.randomUUID());
+        doReturn(new SliceImpl<>(List.of(order), pageable, false))
+                .when(orderRepository).findBy(any(Specification.class), any());
+
+        Page<OrderDto> result = (Page<OrderDto>) orderService.searchOrders(EMPTY_FILTER, CountMode.ESTIMATED, pageable);
+
+        assertEquals(11, result.getTotalElements());
+        verify(orderRepository, never()).estimateCount(any());
+    }
+
+    @Test
+    void exportOrders_shouldWriteOnlyWhenBodyIsStreamed() throws Exception {
+        OrderSearchFilter filter = new OrderSearchFilter(null, List.of(Status.PENDING), null, null, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        StreamingResponseBody body = orderService.exportOrders(filter, true);
+        verifyNoInteractions(orderExportWriter);
+        body.writeTo(out);
+
+        verify(orderExportWriter).write(filter, true, out);
+    }
+
+    @Test
+    void updateOrderStatusesSystem_shouldRunOneUpdatePerStatus_andEvictAllOrders() {
+        UUID paid1 = UUID.randomUUID();
+        UUID paid2 = UUID.randomUUID();
+        UUID declined = UUID.randomUUID();
+        Map<UUID, Status> statuses = new LinkedHashMap<>();
+        statuses.put(paid1, Status.PROCESSING);
+        statuses.put(declined, Status.CANCELLED);
+        statuses.put(paid2, Status.PROCESSING);
+
+        when(orderRepository.updateStatuses(new UUID[]{paid1, paid2}, "PROCESSING")).thenReturn(1);
+        when(orderRepository.updateStatuses(new UUID[]{declined}, "CANCELLED")).thenReturn(1);
+
+        int updated = orderService.updateOrderStatusesSystem(statuses);
+
+        assertEquals(2, updated);
+        verify(orderRepository, times(2)).updateStatuses(any(), any());
+        verify(bulkCache).evictAll("orders", List.of(paid1, paid2));
+        verify(bulkCache).evictAll("orders", List.of(declined));
+    }
+
+    @Test
+    void updateOrderStatusesSystem_shouldEvictCommittedGroups_whenLaterGroupFails() {
+        UUID paid = UUID.randomUUID();
+        UUID declined = UUID.randomUUID();
+        Map<UUID, Status> statuses = new LinkedHashMap<>();
+        statuses.put(paid, Status.PROCESSING);
+        statuses.put(declined, Status.CANCELLED);
+
+        when(orderRepository.updateStatuses(new UUID[]{paid}, "PROCESSING")).thenReturn(1);
+        when(orderRepository.updateStatuses(new UUID[]{declined}, "CANCELLED"))
+                .thenThrow(new QueryTimeoutException("timeout"));
+
+        assertThrows(QueryTimeoutException.class, () -> orderService.updateOrderStatusesSystem(statuses));
+
+        verify(bulkCache).evictAll("orders", List.of(paid));
+        verify(bulkCache, never()).evictAll("orders", List.of(declined));
+    }
+}
@@ -1,23 +1,36 @@
 package io.hohichh.marketplace.order.service;
 
+import io.hohichh.marketplace.order.cache.RedisBulkCache;
+import io.hohichh.marketplace.order.config.PaginationProperties;
+import io.hohichh.marketplace.order.dto.CursorPageDto;
 import io.hohichh.marketplace.order.dto.product.NewProductDto;
 import io.hohichh.marketplace.order.dto.product.ProductDto;
+import io.hohichh.marketplace.order.dto.product.ProductImportFormat;
+import io.hohichh.marketplace.order.dto.product.ProductImportResultDto;
 import io.hohichh.marketplace.order.exception.ResourceNotFoundException;
 import io.hohichh.marketplace.order.mapper.ProductMapper;
 import io.hohichh.marketplace.order.model.Product;
+import io.hohichh.marketplace.order.repository.ProductImportRepository;
 import io.hohichh.marketplace.order.repository.ProductRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -34,6 +47,12 @@ class ProductServiceTest {
     @Mock
     private ProductMapper productMapper;
 
+    @Mock
+    private RedisBulkCache bulkCache;
+
+    @Spy
+    private PaginationProperties pagination = new PaginationProperties(100);
+
     @InjectMocks
     private ProductServiceImpl productService;
 
@@ -149,6 +168,42 @@ class ProductServiceTest {
         assertEquals(productDto, result.getContent().get(0));
     }
 
+    @Test
+    void scrollProducts_shouldReturnCursorOfLastRow_whenMoreRowsExist() {
+        // Arrange
+        Product first = new Product();
+        Product second = new Product();
+        UUID firstId = UUID.randomUUID();
+        ReflectionTestUtils.setField(first, "id", firstId);
+        ProductDto firstDto = new ProductDto(firstId, "Name", BigDecimal.TEN);
+
+        when(productRepository.findAllByOrderByIdAsc(Limit.of(2))).thenReturn(List.of(first, second));
+        when(productMapper.toProductDto(first)).thenReturn(firstDto);
+
+        // Act
+        CursorPageDto<ProductDto> result = productService.scrollProducts(null, 1);
+
+        // Assert
+        assertEquals(List.of(firstDto), result.content());
+        assertEquals(firstId, SeekCursor.decode(result.nextCursor()).id());
+    }
+
+    @Test
+    void scrollProducts_shouldSeekAfterCursor_andEndOnLastPage() {
+        // Arrange
+        UUID lastSeenId = UUID.randomUUID();
+        String cursor = new SeekCursor(null, lastSeenId).encode();
+
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(lastSeenId, Limit.of(11))).thenReturn(List.of());
+
+        // Act
+        CursorPageDto<ProductDto> result = productService.scrollProducts(cursor, 10);
+
+        // Assert
+        assertTrue(result.content().isEmpty());
+        assertNull(result.nextCursor());
+    }
+
     @Test
     void getProductById_shouldReturnProductDto() {
         // Arrange
@@ -176,4 +231,82 @@ class ProductServiceTest {
         assertThrows(ResourceNotFoundException.class,
                 () -> productService.getProductById(id));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getProductsByIds_shouldLoadOnlyCacheMisses() {
+        // Arrange
+        UUID cachedId = UUID.randomUUID();
+        UUID missedId = UUID.randomUUID();
+        ProductDto cachedDto = new ProductDto(cachedId, "Cached", BigDecimal.ONE);
+        ProductDto loadedDto = new ProductDto(missedId, "Loaded", BigDecimal.TEN);
+        Product loadedProduct = new Product();
+
+        when(bulkCache.getAll(eq("products"), any(), eq(ProductDto.class)))
+                .thenReturn(Map.of(cachedId, cachedDto));
+        when(productRepository.findAllById(List.of(missedId))).thenReturn(List.of(loadedProduct));
+        when(productMapper.toProductDto(loadedProduct)).thenReturn(loadedDto);
+
+        // Act
+        Map<UUID, ProductDto> result = productService.getProductsByIds(List.of(cachedId, missedId, cachedId));
+
+        // Assert
+        assertEquals(Map.of(cachedId, cachedDto, missedId, loadedDto), result);
+        verify(bulkCache).putAll("products", Map.of(missedId, loadedDto));
+    }
+
+    @Test
+    void getProductsByIds_shouldReportAllUnknownIds() {
+        // Arrange
+        UUID firstUnknown = UUID.randomUUID();
+        UUID secondUnknown = UUID.randomUUID();
+
+        when(bulkCache.getAll(eq("products"), any(), eq(ProductDto.class))).thenReturn(Map.of());
+        when(productRepository.findAllById(List.of(firstUnknown, secondUnknown))).thenReturn(List.of());
+
+        // Act & Assert
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class,
+                () -> productService.getProductsByIds(List.of(firstUnknown, secondUnknown)));
+
+        assertTrue(exception.getMessage().contains(firstUnknown.toString()));
+        assertTrue(exception.getMessage().contains(secondUnknown.toString()));
+    }
+
+    @Test
+    void importProducts_shouldEvictOnlyChangedProducts() {
+        // Arrange
+        UUID changedId = UUID.randomUUID();
+        InputStream input = new ByteArrayInputStream(new byte[0]);
+        when(productRepository.importProducts(ProductImportFormat.CSV, input))
+                .thenReturn(new ProductImportRepository.ImportResult(3, 2,
+                        ProductImportRepository.UpdatedIds.of(List.of(changedId))));
+
+        // Act
+        ProductImportResultDto result = productService.importProducts(ProductImportFormat.CSV, input);
+
+        // Assert
+        assertEquals(new ProductImportResultDto(3, 2, 1), result);
+        verify(bulkCache).evictAll("products", List.of(changedId));
+    }
+
+    @Test
+    void importProducts_shouldEvictChangedProductsInFixedSizeBatches() {
+        // Arrange
+        List<UUID> changedIds = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            changedIds.add(UUID.randomUUID());
+        }
+        InputStream input = new ByteArrayInputStream(new byte[0]);
+        when(productRepository.importProducts(ProductImportFormat.NDJSON, input))
+                .thenReturn(new ProductImportRepository.ImportResult(2500, 0,
+                        ProductImportRepository.UpdatedIds.of(changedIds)));
+
+        // Act
+        ProductImportResultDto result = productService.importProducts(ProductImportFormat.NDJSON, input);
+
+        // Assert
+        assertEquals(new ProductImportResultDto(2500, 0, 2500), result);
+        verify(bulkCache).evictAll("products", changedIds.subList(0, 1000));
+        verify(bulkCache).evictAll("products", changedIds.subList(1000, 2000));
+        verify(bulkCache).evictAll("products", changedIds.subList(2000, 2500));
+    }
+}